@@ -0,0 +1,163 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms;
+
+import com.starfireaviation.model.Address;
+import com.starfireaviation.model.Answer;
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.EventType;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.ReferenceMaterial;
+import com.starfireaviation.model.User;
+import com.starfireaviation.sms.model.EventFragment;
+import com.starfireaviation.sms.util.TemplateUtil;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Realistic model fixtures shared by the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Utility class.
+     */
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A verified student.
+     *
+     * @return User
+     */
+    public static User user() {
+        final User user = new User();
+        user.setId(1042L);
+        user.setFirstName("Amelia");
+        user.setLastName("Earhart");
+        user.setCode("482913");
+        user.setCertificateNumber("3581127");
+        user.setSms("+15125550199");
+        return user;
+    }
+
+    /**
+     * A ground school session with a full address.
+     *
+     * @return Event
+     */
+    public static Event event() {
+        final Address address = new Address();
+        address.setAddressLine1("4321 Airport Blvd");
+        address.setAddressLine2("Hangar 7");
+        address.setCity("Austin");
+        address.setState("TX");
+        address.setZipCode("78722");
+        final Event event = new Event();
+        event.setId(77L);
+        event.setTitle("Private Pilot Ground School: Weather Theory");
+        event.setStartTime(LocalDateTime.of(2022, 10, 18, 18, 30));
+        event.setEventType(EventType.GROUNDSCHOOL);
+        event.setAddress(address);
+        return event;
+    }
+
+    /**
+     * A multiple choice question with reference material.
+     *
+     * @return Question
+     */
+    public static Question question() {
+        final ReferenceMaterial phak = new ReferenceMaterial();
+        phak.setResourceLocation("https://www.faa.gov/regulations_policies/handbooks_manuals/aviation/phak");
+        final Question question = new Question();
+        question.setId(311L);
+        question.setUnit("Weather");
+        question.setSubUnit("Stability");
+        question.setLearningStatementCode("PLT173");
+        question.setText("What are characteristics of a moist, unstable air mass?");
+        question.setReferenceMaterials(Collections.singletonList(phak));
+        question.setAnswers(Arrays.asList(
+                answer("A", "Cumuliform clouds and showery precipitation."),
+                answer("B", "Poor visibility and smooth air."),
+                answer("C", "Stratiform clouds and showery precipitation.")));
+        return question;
+    }
+
+    /**
+     * The per-message HashMap model that preceded {@link com.starfireaviation.sms.model.MessageModel},
+     * kept as a baseline.
+     *
+     * @param user     User
+     * @param event    Event, may be null
+     * @param question Question, may be null
+     * @return model
+     */
+    public static Map<String, Object> mapModel(final User user, final Event event, final Question question) {
+        final Map<String, Object> model = new HashMap<>();
+        model.put("groundSchoolLink", "https://groundschool.starfireaviation.com");
+        model.put("groundSchoolPasswordResetLink", "");
+        model.put("firstName", user.getFirstName());
+        model.put("lastName", user.getLastName());
+        model.put("userId", user.getId());
+        model.put("code", user.getCode());
+        model.put("certificateNumber", user.getCertificateNumber());
+        final EventFragment fragment =
+                event != null ? TemplateUtil.buildEventFragment(event, 0L) : EventFragment.EMPTY;
+        model.put("event", fragment.getEvent());
+        model.put("eventtitle", fragment.getEventTitle());
+        model.put("dayofweek", fragment.getDayOfWeek());
+        if (question != null) {
+            model.put("questionUnit", question.getUnit());
+            model.put("questionSubUnit", question.getSubUnit());
+            model.put("questionLearningStatementCode", question.getLearningStatementCode());
+            model.put("questionText", question.getText());
+            model.put("callbackId", "question");
+            final StringBuilder sb = new StringBuilder("Reference Material: ");
+            for (ReferenceMaterial referenceMaterial : question.getReferenceMaterials()) {
+                sb.append("<").append(referenceMaterial.getResourceLocation()).append(">\n");
+            }
+            model.put("referenceMaterial", sb.toString());
+            int count = 1;
+            for (Answer answer : question.getAnswers()) {
+                model.put("answerChoice" + count, answer.getChoice());
+                model.put("answerText" + count, answer.getText());
+                count++;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Answer.
+     *
+     * @param choice choice
+     * @param text   text
+     * @return Answer
+     */
+    private static Answer answer(final String choice, final String text) {
+        final Answer answer = new Answer();
+        answer.setChoice(choice);
+        answer.setText(text);
+        return answer;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound webhook parsing: single-pass parser versus the previous split/URLDecoder/valueOf parser.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SMSMessageBenchmark {
+
+    /**
+     * A real-shaped Twilio webhook body, including fields SMSMessage does not map.
+     */
+    static final String TWILIO_BODY = "ToCountry=US&ToState=TX&SmsMessageSid=SM0123456789abcdef0123456789abcdef"
+            + "&NumMedia=0&ToCity=AUSTIN&FromZip=78701&SmsSid=SM0123456789abcdef0123456789abcdef&FromState=TX"
+            + "&SmsStatus=received&FromCity=AUSTIN&Body=Confirm+it%21&FromCountry=US&To=%2B15125550100"
+            + "&MessagingServiceSid=MG0123456789abcdef0123456789abcdef&OptOutType=START&ToZip=78701"
+            + "&NumSegments=1&MessageSid=SM0123456789abcdef0123456789abcdef"
+            + "&AccountSid=AC0123456789abcdef0123456789abcdef&From=%2B15125550199&ApiVersion=2010-04-01";
+
+    /**
+     * TWILIO_BODY as it arrives on the wire.
+     */
+    static final byte[] TWILIO_BYTES = TWILIO_BODY.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Current parser.
+     *
+     * @return SMSMessage
+     */
+    @Benchmark
+    public SMSMessage singlePass() {
+        return new SMSMessage(TWILIO_BODY);
+    }
+
+    /**
+     * Lazy view over the raw bytes, reading only what the webhook handler reads.
+     *
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void lazyView(final Blackhole blackhole) {
+        final SMSMessage message = new SMSMessage(TWILIO_BYTES);
+        blackhole.consume(message.getFrom());
+        blackhole.consume(message.getBody());
+    }
+
+    /**
+     * Previous parser.
+     *
+     * @return decoded fields
+     */
+    @Benchmark
+    public Map<TwilioPart, String> legacy() {
+        return legacyParse(TWILIO_BODY);
+    }
+
+    /**
+     * The parsing loop SMSMessage(String) used before the single-pass parser, kept as a baseline.
+     *
+     * @param message body
+     * @return decoded fields
+     */
+    static Map<TwilioPart, String> legacyParse(final String message) {
+        final Map<TwilioPart, String> fields = new EnumMap<>(TwilioPart.class);
+        for (String part : message.split("&")) {
+            try {
+                String[] kvPair = part.split("=");
+                fields.put(TwilioPart.valueOf(kvPair[0]), URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                // Do nothing
+            }
+        }
+        return fields;
+    }
+
+}
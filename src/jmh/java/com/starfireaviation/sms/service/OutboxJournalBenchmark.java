@@ -0,0 +1,110 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.OutboundMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable appends from concurrent senders. With group commit the throughput should grow with the
+ * number of threads rather than being capped at one force per append.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class OutboxJournalBenchmark {
+
+    /**
+     * Journal directory.
+     */
+    private Path directory;
+
+    /**
+     * OutboxJournal.
+     */
+    private OutboxJournal journal;
+
+    /**
+     * Opens a journal in a temporary directory.
+     *
+     * @throws IOException when the directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("outbox-bench");
+        final ApplicationProperties.Outbox settings = new ApplicationProperties.Outbox();
+        settings.setEnabled(true);
+        settings.setDirectory(directory.toString());
+        journal = new OutboxJournal(settings, new SimpleMeterRegistry());
+        journal.open();
+    }
+
+    /**
+     * Closes the journal and deletes its directory.
+     *
+     * @throws IOException when the directory cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Appends a typical message durably and marks it done, as a successful send does.
+     *
+     * @return OutboundMessage
+     */
+    @Benchmark
+    public OutboundMessage appendAndMarkDone() {
+        final OutboundMessage message = new OutboundMessage(
+                "+15125550100",
+                "+15125550199",
+                "Hi Amelia Earhart, please RSVP for the ground school session by responding with CONFIRM");
+        journal.append(message);
+        journal.markDone(message);
+        return message;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.util.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking sends with a given number in flight: a fixed pool of platform threads versus a virtual
+ * thread per send capped by a semaphore, as OutboundPipeline does with virtual threads enabled.
+ *
+ * <p>Each send blocks for SEND_MILLIS, standing in for the Twilio API round trip. The virtual
+ * mode needs a JDK 21+ runtime and fails its setup on older ones. Platform thread stacks live
+ * outside the heap, so compare the process RSS as well as the gc profiler's allocation rate.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendExecutorBenchmark {
+
+    /**
+     * Simulated Twilio API latency.
+     */
+    private static final long SEND_MILLIS = 20;
+
+    /**
+     * Sends per operation, per unit of concurrency.
+     */
+    private static final int ROUNDS = 4;
+
+    /**
+     * Execution mode.
+     */
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    /**
+     * Sends in flight.
+     */
+    @Param({"1000", "4000"})
+    private int concurrency;
+
+    /**
+     * Executor.
+     */
+    private ExecutorService executor;
+
+    /**
+     * In-flight cap, virtual mode only.
+     */
+    private Semaphore inFlight;
+
+    /**
+     * Creates the executor.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("virtual".equals(mode)) {
+            executor = VirtualThreads.newExecutor("bench-send-");
+            if (executor == null) {
+                throw new IllegalStateException("Virtual threads require a JDK 21+ runtime");
+            }
+            inFlight = new Semaphore(concurrency);
+        } else {
+            executor = Executors.newFixedThreadPool(concurrency);
+        }
+    }
+
+    /**
+     * Stops the executor.
+     *
+     * @throws InterruptedException when interrupted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Runs ROUNDS * concurrency blocking sends and waits for all of them.
+     *
+     * @return sends completed
+     * @throws InterruptedException when interrupted
+     */
+    @Benchmark
+    public long sendAll() throws InterruptedException {
+        final int sends = ROUNDS * concurrency;
+        final CountDownLatch done = new CountDownLatch(sends);
+        for (int i = 0; i < sends; i++) {
+            if (inFlight != null) {
+                inFlight.acquireUninterruptibly();
+            }
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(SEND_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return sends;
+    }
+
+}
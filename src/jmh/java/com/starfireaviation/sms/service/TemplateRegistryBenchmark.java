@@ -0,0 +1,135 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.BenchmarkFixtures;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.MessageModel;
+import com.starfireaviation.sms.model.MessageTemplate;
+import com.starfireaviation.sms.util.TemplateUtil;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of every message template, with and without compiled placeholder templates, with a
+ * model built from realistic fixtures.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRegistryBenchmark {
+
+    /**
+     * Template under test.
+     */
+    @Param
+    private MessageTemplate template;
+
+    /**
+     * Whether plain templates are rendered without FreeMarker.
+     */
+    @Param({"true", "false"})
+    private boolean compiled;
+
+    /**
+     * TemplateRegistry.
+     */
+    private TemplateRegistry templateRegistry;
+
+    /**
+     * Model.
+     */
+    private MessageModel model;
+
+    /**
+     * HashMap model, for comparison.
+     */
+    private Map<String, Object> mapModel;
+
+    /**
+     * Loads the templates the way Spring Boot configures FreeMarker, and builds the model.
+     */
+    @Setup
+    public void setup() {
+        final Configuration config = new Configuration(Configuration.VERSION_2_3_31);
+        config.setClassForTemplateLoading(TemplateRegistry.class, "/templates/");
+        config.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        final ApplicationProperties.Templates settings = new ApplicationProperties.Templates();
+        settings.setCompiled(compiled);
+        templateRegistry = new TemplateRegistry(config, settings, new SimpleMeterRegistry());
+        model = TemplateUtil.getModel(
+                BenchmarkFixtures.user(),
+                BenchmarkFixtures.event(),
+                BenchmarkFixtures.question(),
+                new ApplicationProperties());
+        model.setHostUi("https://groundschool.starfireaviation.com");
+        model.setResponse("Z");
+        model.setOriginalMessage("Please verify your settings by replying with 482913");
+        mapModel = BenchmarkFixtures.mapModel(
+                BenchmarkFixtures.user(),
+                BenchmarkFixtures.event(),
+                BenchmarkFixtures.question());
+        mapModel.put("hostui", "https://groundschool.starfireaviation.com");
+        mapModel.put("response", "Z");
+        mapModel.put("original_message", "Please verify your settings by replying with 482913");
+    }
+
+    /**
+     * TemplateRegistry.render.
+     *
+     * @return rendered message
+     * @throws IOException       when the template cannot be written
+     * @throws TemplateException when the model does not satisfy the template
+     */
+    @Benchmark
+    public String render() throws IOException, TemplateException {
+        return templateRegistry.render(template, model);
+    }
+
+    /**
+     * TemplateRegistry.render of the HashMap model, for comparison.
+     *
+     * @return rendered message
+     * @throws IOException       when the template cannot be written
+     * @throws TemplateException when the model does not satisfy the template
+     */
+    @Benchmark
+    public String renderMap() throws IOException, TemplateException {
+        return templateRegistry.render(template, mapModel);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phone number normalization and phone-keyed lookups.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneNumbersBenchmark {
+
+    /**
+     * Numbers held by the lookup maps.
+     */
+    private static final int NUMBERS = 10000;
+
+    /**
+     * Sender as Twilio reports it, a national number and an international one.
+     */
+    @Param({"+15125550199", "5125550199", "+447700900123"})
+    private String from;
+
+    /**
+     * Numbers by key.
+     */
+    private final LongHashMap<Object> byKey = new LongHashMap<>(NUMBERS);
+
+    /**
+     * Numbers by string.
+     */
+    private final Map<String, Object> byString = new HashMap<>();
+
+    /**
+     * Fills the lookup maps.
+     */
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < NUMBERS; i++) {
+            final String number = "+1512555" + (1000 + i % 9000) + i / 9000;
+            byKey.put(PhoneNumbers.parse(number), number);
+            byString.put(number, number);
+        }
+        byKey.put(PhoneNumbers.parse(from), from);
+        byString.put(from, from);
+    }
+
+    /**
+     * PhoneNumbers.parse.
+     *
+     * @return key
+     */
+    @Benchmark
+    public long parse() {
+        return PhoneNumbers.parse(from);
+    }
+
+    /**
+     * Parse, then look up in a LongHashMap.
+     *
+     * @return value
+     */
+    @Benchmark
+    public Object lookupByKey() {
+        return byKey.get(PhoneNumbers.parse(from));
+    }
+
+    /**
+     * Look up a freshly decoded copy of the string (hash not yet cached) in a HashMap, for
+     * comparison.
+     *
+     * @return value
+     */
+    @Benchmark
+    public Object lookupByString() {
+        return byString.get(new String(from.toCharArray()));
+    }
+
+}
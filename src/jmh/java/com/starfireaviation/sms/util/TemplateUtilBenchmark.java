@@ -0,0 +1,99 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.User;
+import com.starfireaviation.sms.BenchmarkFixtures;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.MessageModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template model building.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateUtilBenchmark {
+
+    /**
+     * User.
+     */
+    private final User user = BenchmarkFixtures.user();
+
+    /**
+     * Event.
+     */
+    private final Event event = BenchmarkFixtures.event();
+
+    /**
+     * Question.
+     */
+    private final Question question = BenchmarkFixtures.question();
+
+    /**
+     * ApplicationProperties.
+     */
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    /**
+     * Full model: user, event and question.
+     *
+     * @return model
+     */
+    @Benchmark
+    public MessageModel getModel() {
+        return TemplateUtil.getModel(user, event, question, applicationProperties);
+    }
+
+    /**
+     * User only model, as used by the account notifications.
+     *
+     * @return model
+     */
+    @Benchmark
+    public MessageModel getUserModel() {
+        return TemplateUtil.getModel(user, null, null, applicationProperties);
+    }
+
+    /**
+     * Full model built as a HashMap, for comparison.
+     *
+     * @return model
+     */
+    @Benchmark
+    public Map<String, Object> getMapModel() {
+        return BenchmarkFixtures.mapModel(user, event, question);
+    }
+
+}
@@ -19,6 +19,11 @@ package com.starfireaviation.sms.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @ConfigurationProperties("sms")
 public class ApplicationProperties {
@@ -43,4 +48,404 @@ public class ApplicationProperties {
      */
     private boolean enabled;
 
+    /**
+     * Outbound pipeline settings.
+     */
+    private final Outbound outbound = new Outbound();
+
+    /**
+     * Inbound processing settings.
+     */
+    private final Inbound inbound = new Inbound();
+
+    /**
+     * Outbound outbox journal settings.
+     */
+    private final Outbox outbox = new Outbox();
+
+    /**
+     * Twilio HTTP client settings.
+     */
+    private final Twilio twilio = new Twilio();
+
+    /**
+     * Per sender number rate limit settings.
+     */
+    private final RateLimit rateLimit = new RateLimit();
+
+    /**
+     * Sender number pool settings.
+     */
+    private final NumberPool numberPool = new NumberPool();
+
+    /**
+     * User, event, question and quiz lookup cache settings.
+     */
+    private final ModelCache modelCache = new ModelCache();
+
+    /**
+     * Conversation state settings.
+     */
+    private final Conversations conversations = new Conversations();
+
+    /**
+     * Opt-out registry settings.
+     */
+    private final OptOut optOut = new OptOut();
+
+    /**
+     * Message template settings.
+     */
+    private final Templates templates = new Templates();
+
+    /**
+     * Outbound encoding settings.
+     */
+    private final Encoding encoding = new Encoding();
+
+    /**
+     * Outbound pipeline settings.
+     */
+    @Data
+    public static class Outbound {
+
+        /**
+         * Capacity of the outbound queue, split evenly across consumers. Each share is rounded up to
+         * a power of two.
+         */
+        private int queueCapacity = 4096;
+
+        /**
+         * Number of consumer threads. Each drains its own stripe of the outbound queue, and messages
+         * to one recipient always go to the same stripe.
+         */
+        private int consumers = 2;
+
+        /**
+         * Maximum number of messages a consumer takes from the queue at once.
+         */
+        private int batchSize = 32;
+
+        /**
+         * Send each message on its own virtual thread (JDK 21+). Ignored on older runtimes.
+         */
+        private boolean virtualThreads;
+
+        /**
+         * Maximum sends in flight when running on virtual threads. Sends beyond twilio.maxConnections
+         * wait for a pooled connection, so the two are normally raised together.
+         */
+        private int maxInFlight = 1000;
+
+        /**
+         * Milliseconds to hold a message so that others to the same recipient can be merged into one
+         * send; 0 disables coalescing. Time-critical messages are never held.
+         */
+        private long coalesceWindow;
+
+        /**
+         * Maximum segments of a merged message.
+         */
+        private int coalesceMaxSegments = 3;
+
+        /**
+         * Times a send that failed with a retryable error is tried again before its future fails.
+         * A message that is still failing stays in the outbox journal and is sent after a restart.
+         */
+        private int retryAttempts = 3;
+
+        /**
+         * Milliseconds before the first retry; doubled for each further retry.
+         */
+        private long retryBackoff = 1000;
+
+        /**
+         * Threads rendering and queueing broadcasts. They wait while the outbound queue is full, so
+         * broadcasts get their own pool rather than the common fork-join pool.
+         */
+        private int broadcastParallelism = Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Outbound outbox journal settings.
+     */
+    @Data
+    public static class Outbox {
+
+        /**
+         * Journal outbound messages so unsent ones survive a restart.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory holding the journal segments.
+         */
+        private String directory = "outbox";
+
+        /**
+         * Size of each memory-mapped segment in bytes.
+         */
+        private int segmentSize = 16 * 1024 * 1024;
+
+    }
+
+    /**
+     * Inbound processing settings.
+     */
+    @Data
+    public static class Inbound {
+
+        /**
+         * Capacity of the inbound queue, split evenly across stripes. When a stripe is full the
+         * webhook waits for room.
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * Number of threads processing replies. Replies from one number always go to the same thread.
+         */
+        private int consumers = 2;
+
+        /**
+         * Handle webhook requests on virtual threads (JDK 21+). Ignored on older runtimes.
+         */
+        private boolean virtualThreads;
+
+        /**
+         * Maximum webhook requests handled at once on virtual threads. Further requests wait until
+         * one finishes.
+         */
+        private int maxConcurrentRequests = 1000;
+
+        /**
+         * Minimum time, in milliseconds, a MessageSid is remembered to drop Twilio's retries.
+         */
+        private long dedupWindow = 600000;
+
+        /**
+         * Number of MessageSids remembered per window before older ones are dropped early.
+         */
+        private int dedupMaxKeys = 100000;
+
+    }
+
+    /**
+     * Twilio HTTP client settings. Times are in milliseconds.
+     */
+    @Data
+    public static class Twilio {
+
+        /**
+         * Maximum pooled connections.
+         */
+        private int maxConnections = 50;
+
+        /**
+         * Maximum pooled connections per route. All sends go to api.twilio.com, so this is
+         * normally the same as maxConnections.
+         */
+        private int maxConnectionsPerRoute = 50;
+
+        /**
+         * Connect timeout.
+         */
+        private int connectTimeout = 10000;
+
+        /**
+         * Socket (read) timeout.
+         */
+        private int socketTimeout = 30500;
+
+        /**
+         * Time to wait for a connection from the pool.
+         */
+        private int connectionRequestTimeout = 5000;
+
+        /**
+         * Maximum lifetime of a pooled connection.
+         */
+        private long connectionTimeToLive = 300000;
+
+        /**
+         * Idle time after which a pooled connection is re-validated before reuse.
+         */
+        private int validateAfterInactivity = 2000;
+
+        /**
+         * Number of cached TLS sessions available for resumption.
+         */
+        private int tlsSessionCacheSize = 64;
+
+        /**
+         * Lifetime of a cached TLS session.
+         */
+        private long tlsSessionTimeout = 86400000;
+
+    }
+
+    /**
+     * Per sender number rate limit settings.
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Rate limiting enabled.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Default messages-per-second budget of a sender number (1 for a US long code).
+         */
+        private double messagesPerSecond = 1.0;
+
+        /**
+         * Messages that may be sent back-to-back before the budget applies.
+         */
+        private int burst = 1;
+
+        /**
+         * Messages-per-second budget by sender number, e.g. sms.rate-limit.numbers[+15555550100]=10.
+         */
+        private Map<String, Double> numbers = new HashMap<>();
+
+    }
+
+    /**
+     * Sender number pool settings.
+     */
+    @Data
+    public static class NumberPool {
+
+        /**
+         * Sender numbers. When empty, fromAddress is the only sender number.
+         */
+        private List<String> numbers = new ArrayList<>();
+
+        /**
+         * Consecutive failures after which a number is taken out of rotation.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * Time (milliseconds) an unhealthy number stays out of rotation.
+         */
+        private long coolDown = 30000;
+
+    }
+
+    /**
+     * User, event, question and quiz lookup cache settings. Times are in milliseconds.
+     */
+    @Data
+    public static class ModelCache {
+
+        /**
+         * Maximum entries per entity type.
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * Time after which an entry is evicted.
+         */
+        private long expireAfterWrite = 600000;
+
+        /**
+         * Time after which a read triggers a background reload, while the cached value is served.
+         */
+        private long refreshAfterWrite = 60000;
+
+        /**
+         * Time after which a lookup that found nothing is retried.
+         */
+        private long negativeExpireAfterWrite = 30000;
+
+    }
+
+    /**
+     * Conversation state settings. Times are in milliseconds.
+     */
+    @Data
+    public static class Conversations {
+
+        /**
+         * Time without activity after which a conversation is dropped.
+         */
+        private long idleTimeout = 86400000;
+
+        /**
+         * Interval at which idle conversations are dropped and the snapshot is written.
+         */
+        private long sweepInterval = 60000;
+
+        /**
+         * Snapshot conversations to disk so they survive a restart.
+         */
+        private boolean snapshotEnabled;
+
+        /**
+         * Snapshot file.
+         */
+        private String snapshotFile = "conversations.snapshot";
+
+    }
+
+    /**
+     * Opt-out registry settings.
+     */
+    @Data
+    public static class OptOut {
+
+        /**
+         * Persist opt-outs to a memory-mapped file so they survive a restart. When disabled, every
+         * STOP is forgotten on restart and opted-out numbers are texted again until Twilio rejects
+         * them with error 21610.
+         */
+        private boolean persistent = true;
+
+        /**
+         * Opt-out file. It must be on storage that outlives the process, e.g. a persistent volume.
+         */
+        private String file = "opt-outs.dat";
+
+        /**
+         * Number of opt-outs the lookup filter and file are initially sized for.
+         */
+        private long expectedOptOuts = 100000;
+
+        /**
+         * Share of numbers that never opted out but still need an exact (locked) lookup.
+         */
+        private double falsePositiveRate = 0.01;
+
+    }
+
+    /**
+     * Message template settings.
+     */
+    @Data
+    public static class Templates {
+
+        /**
+         * Render templates that only substitute plain variables without FreeMarker.
+         */
+        private boolean compiled = true;
+
+    }
+
+    /**
+     * Outbound encoding settings.
+     */
+    @Data
+    public static class Encoding {
+
+        /**
+         * Replace characters outside the GSM-7 alphabet (typographic quotes, dashes, tabs, ...) with
+         * close equivalents when that keeps a message from being sent as UCS-2.
+         */
+        private boolean transliterate = true;
+
+    }
+
 }
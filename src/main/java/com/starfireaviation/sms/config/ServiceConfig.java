@@ -16,11 +16,33 @@
 
 package com.starfireaviation.sms.config;
 
+import com.starfireaviation.sms.service.ConversationStore;
+import com.starfireaviation.sms.service.EventFragmentCache;
+import com.starfireaviation.sms.service.InboundProcessor;
+import com.starfireaviation.sms.service.MessageEncoder;
+import com.starfireaviation.sms.service.MessageSender;
 import com.starfireaviation.sms.service.MessageService;
+import com.starfireaviation.sms.service.ModelCache;
+import com.starfireaviation.sms.service.ModelLoader;
+import com.starfireaviation.sms.service.NoOpModelLoader;
+import com.starfireaviation.sms.service.OptOutRegistry;
+import com.starfireaviation.sms.service.OutboundPipeline;
+import com.starfireaviation.sms.service.OutboxJournal;
+import com.starfireaviation.sms.service.SenderNumberPool;
+import com.starfireaviation.sms.service.SenderRateLimiter;
+import com.starfireaviation.sms.service.TemplateRegistry;
+import com.starfireaviation.sms.service.TwilioMessageSender;
+import com.starfireaviation.sms.util.RecentKeySet;
+import com.twilio.http.TwilioRestClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
 @Configuration
 @EnableConfigurationProperties({
         ApplicationProperties.class,
@@ -30,14 +52,245 @@ public class ServiceConfig {
     /**
      * MessageService.
      *
-     * @param aProps ApplicationProperties
-     * @param config Freemarker configuration
+     * @param aProps    ApplicationProperties
+     * @param registry  TemplateRegistry
+     * @param encoder   MessageEncoder
+     * @param pipeline  OutboundPipeline
+     * @param pool      SenderNumberPool
+     * @param inbound   InboundProcessor
+     * @param cache     ModelCache
+     * @param fragments EventFragmentCache
+     * @param convos    ConversationStore
+     * @param optOuts   OptOutRegistry
+     * @param broadcast ForkJoinPool rendering broadcasts
+     * @param sids      RecentKeySet of received MessageSids
+     * @param meters    MeterRegistry
      * @return MessageService
      */
     @Bean
     public MessageService messageService(final ApplicationProperties aProps,
-                                         final freemarker.template.Configuration config) {
-        return new MessageService(aProps, config);
+                                         final TemplateRegistry registry,
+                                         final MessageEncoder encoder,
+                                         final OutboundPipeline pipeline,
+                                         final SenderNumberPool pool,
+                                         final InboundProcessor inbound,
+                                         final ModelCache cache,
+                                         final EventFragmentCache fragments,
+                                         final ConversationStore convos,
+                                         final OptOutRegistry optOuts,
+                                         final ForkJoinPool broadcast,
+                                         final RecentKeySet sids,
+                                         final MeterRegistry meters) {
+        return new MessageService(
+                aProps, registry, encoder, pipeline, pool, inbound, cache, fragments, convos, optOuts, broadcast,
+                sids, meters);
+    }
+
+    /**
+     * MessageSids received within sms.inbound.dedup-window, used to drop Twilio's webhook retries.
+     *
+     * @param aProps ApplicationProperties
+     * @return RecentKeySet
+     */
+    @Bean
+    public RecentKeySet recentMessageSids(final ApplicationProperties aProps) {
+        return new RecentKeySet(aProps.getInbound().getDedupWindow(), aProps.getInbound().getDedupMaxKeys());
+    }
+
+    /**
+     * Pool rendering broadcasts. Its threads wait while the outbound queue is full, so it is sized
+     * by sms.outbound.broadcast-parallelism instead of sharing the common pool.
+     *
+     * @param aProps ApplicationProperties
+     * @return ForkJoinPool
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool broadcastPool(final ApplicationProperties aProps) {
+        return new ForkJoinPool(
+                Math.max(1, aProps.getOutbound().getBroadcastParallelism()),
+                pool -> {
+                    final ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("sms-broadcast-" + thread.getPoolIndex());
+                    return thread;
+                },
+                null,
+                false);
+    }
+
+    /**
+     * OptOutRegistry.
+     *
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return OptOutRegistry
+     */
+    @Bean(initMethod = "open", destroyMethod = "close")
+    public OptOutRegistry optOutRegistry(final ApplicationProperties aProps, final MeterRegistry meters) {
+        return new OptOutRegistry(aProps.getOptOut(), meters);
+    }
+
+    /**
+     * ConversationStore.
+     *
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return ConversationStore
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public ConversationStore conversationStore(final ApplicationProperties aProps, final MeterRegistry meters) {
+        return new ConversationStore(aProps.getConversations(), meters);
+    }
+
+    /**
+     * ModelCache.
+     *
+     * @param aProps ApplicationProperties
+     * @param loader ModelLoader
+     * @param meters MeterRegistry
+     * @return ModelCache
+     */
+    @Bean
+    public ModelCache modelCache(final ApplicationProperties aProps,
+                                 final ModelLoader loader,
+                                 final MeterRegistry meters) {
+        return new ModelCache(aProps.getModelCache(), loader, meters);
+    }
+
+    /**
+     * EventFragmentCache.
+     *
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return EventFragmentCache
+     */
+    @Bean
+    public EventFragmentCache eventFragmentCache(final ApplicationProperties aProps, final MeterRegistry meters) {
+        return new EventFragmentCache(aProps.getModelCache(), meters);
+    }
+
+    /**
+     * ModelLoader. Replace with a model service client to resolve users, events, questions and quizzes.
+     *
+     * @return ModelLoader
+     */
+    @Bean
+    public ModelLoader modelLoader() {
+        return new NoOpModelLoader();
+    }
+
+    /**
+     * InboundProcessor. MessageService is looked up on first use, since it submits to this bean.
+     *
+     * @param aProps  ApplicationProperties
+     * @param service MessageService provider
+     * @param meters  MeterRegistry
+     * @return InboundProcessor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public InboundProcessor inboundProcessor(final ApplicationProperties aProps,
+                                             final ObjectProvider<MessageService> service,
+                                             final MeterRegistry meters) {
+        return new InboundProcessor(
+                aProps.getInbound(),
+                inboundResponse -> service.getObject().processInbound(inboundResponse),
+                meters);
+    }
+
+    /**
+     * TemplateRegistry.
+     *
+     * @param config Freemarker configuration
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return TemplateRegistry
+     */
+    @Bean
+    public TemplateRegistry templateRegistry(final freemarker.template.Configuration config,
+                                             final ApplicationProperties aProps,
+                                             final MeterRegistry meters) {
+        return new TemplateRegistry(config, aProps.getTemplates(), meters);
+    }
+
+    /**
+     * MessageEncoder.
+     *
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return MessageEncoder
+     */
+    @Bean
+    public MessageEncoder messageEncoder(final ApplicationProperties aProps, final MeterRegistry meters) {
+        return new MessageEncoder(aProps.getEncoding(), meters);
+    }
+
+    /**
+     * MessageSender.
+     *
+     * @param client TwilioRestClient
+     * @param meters MeterRegistry
+     * @return MessageSender
+     */
+    @Bean
+    public MessageSender messageSender(final TwilioRestClient client, final MeterRegistry meters) {
+        return new TwilioMessageSender(client, meters);
+    }
+
+    /**
+     * SenderRateLimiter.
+     *
+     * @param aProps ApplicationProperties
+     * @return SenderRateLimiter
+     */
+    @Bean
+    public SenderRateLimiter senderRateLimiter(final ApplicationProperties aProps) {
+        return new SenderRateLimiter(aProps.getRateLimit());
+    }
+
+    /**
+     * SenderNumberPool.
+     *
+     * @param aProps ApplicationProperties
+     * @return SenderNumberPool
+     */
+    @Bean
+    public SenderNumberPool senderNumberPool(final ApplicationProperties aProps) {
+        return new SenderNumberPool(aProps);
+    }
+
+    /**
+     * OutboundPipeline.
+     *
+     * @param aProps  ApplicationProperties
+     * @param sender  MessageSender
+     * @param limiter SenderRateLimiter
+     * @param pool    SenderNumberPool
+     * @param journal OutboxJournal
+     * @param optOuts OptOutRegistry
+     * @param meters  MeterRegistry
+     * @return OutboundPipeline
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public OutboundPipeline outboundPipeline(final ApplicationProperties aProps,
+                                             final MessageSender sender,
+                                             final SenderRateLimiter limiter,
+                                             final SenderNumberPool pool,
+                                             final OutboxJournal journal,
+                                             final OptOutRegistry optOuts,
+                                             final MeterRegistry meters) {
+        return new OutboundPipeline(aProps.getOutbound(), sender, limiter, pool, journal, optOuts, meters);
+    }
+
+    /**
+     * OutboxJournal.
+     *
+     * @param aProps ApplicationProperties
+     * @param meters MeterRegistry
+     * @return OutboxJournal
+     */
+    @Bean(initMethod = "open", destroyMethod = "close")
+    public OutboxJournal outboxJournal(final ApplicationProperties aProps, final MeterRegistry meters) {
+        return new OutboxJournal(aProps.getOutbox(), meters);
     }
 
 }
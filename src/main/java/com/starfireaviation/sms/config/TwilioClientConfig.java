@@ -0,0 +1,114 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.config;
+
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.net.ssl.SSLContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Twilio REST client configuration.
+ *
+ * <p>A single {@link TwilioRestClient} is built once and shared by every send. It is backed by a
+ * pooled Apache HTTP client so connections (and their TLS sessions) are kept alive and reused
+ * instead of being re-established per message.</p>
+ */
+@Configuration
+public class TwilioClientConfig {
+
+    /**
+     * Pooled connection manager used by the Twilio HTTP client.
+     *
+     * @param aProps ApplicationProperties
+     * @return PoolingHttpClientConnectionManager
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager twilioConnectionManager(final ApplicationProperties aProps) {
+        final ApplicationProperties.Twilio settings = aProps.getTwilio();
+        final SSLContext sslContext = sslContext(settings);
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(sslContext))
+                        .build(),
+                null,
+                null,
+                null,
+                settings.getConnectionTimeToLive(),
+                TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(settings.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(settings.getValidateAfterInactivity());
+        return connectionManager;
+    }
+
+    /**
+     * TLS context used only by the Twilio client. It is a new context rather than the JVM default
+     * (SSLContexts.createSystemDefault), so tuning its session cache does not affect any other TLS
+     * client in the process.
+     *
+     * @param settings Twilio settings
+     * @return SSLContext
+     */
+    static SSLContext sslContext(final ApplicationProperties.Twilio settings) {
+        final SSLContext sslContext = SSLContexts.createDefault();
+        sslContext.getClientSessionContext().setSessionCacheSize(settings.getTlsSessionCacheSize());
+        sslContext.getClientSessionContext().setSessionTimeout(
+                (int) TimeUnit.MILLISECONDS.toSeconds(settings.getTlsSessionTimeout()));
+        return sslContext;
+    }
+
+    /**
+     * TwilioRestClient.
+     *
+     * @param aProps            ApplicationProperties
+     * @param connectionManager PoolingHttpClientConnectionManager
+     * @return TwilioRestClient
+     */
+    @Bean
+    public TwilioRestClient twilioRestClient(final ApplicationProperties aProps,
+                                             final PoolingHttpClientConnectionManager connectionManager) {
+        final ApplicationProperties.Twilio settings = aProps.getTwilio();
+        final HttpClientBuilder clientBuilder = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(settings.getConnectTimeout())
+                        .setSocketTimeout(settings.getSocketTimeout())
+                        .setConnectionRequestTimeout(settings.getConnectionRequestTimeout())
+                        .build());
+        return new TwilioRestClient.Builder(aProps.getAccountSid(), aProps.getAuthId())
+                .httpClient(new NetworkHttpClient(clientBuilder))
+                .build();
+    }
+
+}
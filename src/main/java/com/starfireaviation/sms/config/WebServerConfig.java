@@ -0,0 +1,100 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.config;
+
+import com.starfireaviation.sms.util.BoundedExecutor;
+import com.starfireaviation.sms.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded web server configuration.
+ */
+@Slf4j
+@Configuration
+public class WebServerConfig implements DisposableBean {
+
+    /**
+     * How long shutdown waits for webhook requests still running.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Executor handling webhook requests on virtual threads, null when not in use.
+     */
+    private BoundedExecutor webhookExecutor;
+
+    /**
+     * Runs webhook requests on virtual threads when sms.inbound.virtual-threads is set and the
+     * runtime supports them. At most sms.inbound.max-concurrent-requests run at once; Tomcat waits
+     * for one to finish before dispatching another.
+     *
+     * @param aProps ApplicationProperties
+     * @return TomcatProtocolHandlerCustomizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadCustomizer(
+            final ApplicationProperties aProps) {
+        return protocolHandler -> {
+            if (!aProps.getInbound().isVirtualThreads()) {
+                return;
+            }
+            final BoundedExecutor executor = getWebhookExecutor(aProps.getInbound().getMaxConcurrentRequests());
+            if (executor == null) {
+                log.warn("Virtual threads are not supported by this runtime; handling webhooks on platform threads");
+                return;
+            }
+            protocolHandler.setExecutor(executor);
+        };
+    }
+
+    /**
+     * Shuts down the webhook executor. Tomcat does not stop an executor it was given, and the web
+     * server has already stopped by the time beans are destroyed.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (webhookExecutor != null && !webhookExecutor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Webhook executor stopped with requests still running");
+        }
+        webhookExecutor = null;
+    }
+
+    /**
+     * Creates the webhook executor on first use.
+     *
+     * @param maxConcurrent maximum requests handled at once
+     * @return BoundedExecutor, or null if the runtime does not support virtual threads
+     */
+    private synchronized BoundedExecutor getWebhookExecutor(final int maxConcurrent) {
+        if (webhookExecutor == null) {
+            final ExecutorService executor = VirtualThreads.newExecutor("sms-webhook-");
+            if (executor != null) {
+                webhookExecutor = new BoundedExecutor(executor, Math.max(1, maxConcurrent));
+            }
+        }
+        return webhookExecutor;
+    }
+
+}
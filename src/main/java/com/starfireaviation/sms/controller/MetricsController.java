@@ -0,0 +1,66 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.controller;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Prometheus scrape endpoint for the SMS message path metrics.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    /**
+     * PrometheusMeterRegistry, absent when metrics export is disabled.
+     */
+    private final ObjectProvider<PrometheusMeterRegistry> prometheusMeterRegistry;
+
+    /**
+     * MetricsController.
+     *
+     * @param registry PrometheusMeterRegistry provider
+     */
+    public MetricsController(final ObjectProvider<PrometheusMeterRegistry> registry) {
+        prometheusMeterRegistry = registry;
+    }
+
+    /**
+     * Metrics in the Prometheus text format.
+     *
+     * @return metrics, or 404 when Prometheus export is disabled
+     */
+    @GetMapping()
+    public ResponseEntity<String> metrics() {
+        final PrometheusMeterRegistry registry = prometheusMeterRegistry.getIfAvailable();
+        if (registry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, TextFormat.CONTENT_TYPE_004)
+                .body(registry.scrape());
+    }
+}
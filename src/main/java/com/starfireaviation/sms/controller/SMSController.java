@@ -18,12 +18,17 @@ package com.starfireaviation.sms.controller;
 
 import com.starfireaviation.sms.model.SMSMessage;
 import com.starfireaviation.sms.service.MessageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 /**
  * SMSController.
  */
@@ -39,25 +44,54 @@ public class SMSController {
      */
     private final MessageService messageService;
 
+    /**
+     * Webhook parse time.
+     */
+    private final Timer parseTimer;
+
+    /**
+     * Webhook handling time, parse included.
+     */
+    private final Timer requestTimer;
+
     /**
      * NotificationController.
      *
-     * @param sService   SMSService
+     * @param sService      SMSService
+     * @param meterRegistry MeterRegistry
      */
-    public SMSController(final MessageService sService) {
+    public SMSController(final MessageService sService, final MeterRegistry meterRegistry) {
         messageService = sService;
+        parseTimer = Timer.builder("sms.inbound.parse")
+                .description("Webhook body parse time")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        requestTimer = Timer.builder("sms.inbound.requests")
+                .description("Webhook handling time")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
-     * Receives an SMS message.
+     * Receives an SMS message. The raw body is handed to a lazily decoded SMSMessage, so only the
+     * fields that are actually read get decoded.
      *
      * @param message received
      * @return response
      */
     @PostMapping
-    public String sms(@RequestBody final String message) {
-        log.info(String.format("sms() called with [%s]", message));
-        return messageService.receiveMessage(new SMSMessage(message));
+    public String sms(@RequestBody final byte[] message) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("sms() called with [%s]", new String(message, StandardCharsets.UTF_8)));
+        }
+        final long start = System.nanoTime();
+        final SMSMessage smsMessage = new SMSMessage(message);
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            return messageService.receiveMessage(smsMessage);
+        } finally {
+            requestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
 }
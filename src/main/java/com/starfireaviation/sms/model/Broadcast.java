@@ -0,0 +1,218 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Progress and per-recipient outcomes of a broadcast.
+ *
+ * <p>Outcomes are indexed in the same order as the recipient list handed to the broadcast.</p>
+ */
+public class Broadcast {
+
+    /**
+     * MessageTemplate.
+     */
+    private final MessageTemplate messageTemplate;
+
+    /**
+     * Per-recipient outcomes.
+     */
+    private final AtomicReferenceArray<RecipientOutcome> outcomes;
+
+    /**
+     * Recipients queued so far.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Recipients accepted by the provider.
+     */
+    private final AtomicInteger sent = new AtomicInteger();
+
+    /**
+     * Recipients failed.
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Recipients not yet in a final state.
+     */
+    private final AtomicInteger remaining;
+
+    /**
+     * Completed once every recipient has reached a final state.
+     */
+    private final CompletableFuture<Broadcast> completion = new CompletableFuture<>();
+
+    /**
+     * Initializes an instance of <code>Broadcast</code> with the default data.
+     *
+     * @param template   MessageTemplate
+     * @param recipients number of recipients
+     */
+    public Broadcast(final MessageTemplate template, final int recipients) {
+        messageTemplate = template;
+        outcomes = new AtomicReferenceArray<>(recipients);
+        remaining = new AtomicInteger(recipients);
+        for (int i = 0; i < recipients; i++) {
+            outcomes.set(i, new RecipientOutcome(null, RecipientOutcome.Status.PENDING, null, null));
+        }
+        if (recipients == 0) {
+            completion.complete(this);
+        }
+    }
+
+    /**
+     * Records that a recipient's message was rendered and queued.
+     *
+     * @param index recipient index
+     * @param to    to address
+     */
+    public void recordQueued(final int index, final String to) {
+        outcomes.set(index, new RecipientOutcome(to, RecipientOutcome.Status.QUEUED, null, null));
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Records that a recipient's message was accepted by the provider.
+     *
+     * @param index recipient index
+     * @param to    to address
+     * @param sid   provider message id
+     */
+    public void recordSent(final int index, final String to, final String sid) {
+        outcomes.set(index, new RecipientOutcome(to, RecipientOutcome.Status.SENT, sid, null));
+        sent.incrementAndGet();
+        finish();
+    }
+
+    /**
+     * Records that a recipient's message could not be rendered or sent.
+     *
+     * @param index recipient index
+     * @param to    to address
+     * @param error failure reason
+     */
+    public void recordFailed(final int index, final String to, final String error) {
+        outcomes.set(index, new RecipientOutcome(to, RecipientOutcome.Status.FAILED, null, error));
+        failed.incrementAndGet();
+        finish();
+    }
+
+    /**
+     * Records that a recipient was skipped.
+     *
+     * @param index recipient index
+     * @param to    to address
+     */
+    public void recordSkipped(final int index, final String to) {
+        outcomes.set(index, new RecipientOutcome(to, RecipientOutcome.Status.SKIPPED, null, null));
+        finish();
+    }
+
+    /**
+     * MessageTemplate.
+     *
+     * @return MessageTemplate
+     */
+    public MessageTemplate getMessageTemplate() {
+        return messageTemplate;
+    }
+
+    /**
+     * Number of recipients.
+     *
+     * @return total
+     */
+    public int getTotal() {
+        return outcomes.length();
+    }
+
+    /**
+     * Recipients queued so far.
+     *
+     * @return queued
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Recipients accepted by the provider.
+     *
+     * @return sent
+     */
+    public int getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Recipients failed.
+     *
+     * @return failed
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Whether every recipient has reached a final state.
+     *
+     * @return done
+     */
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * Snapshot of the per-recipient outcomes.
+     *
+     * @return outcomes, in recipient order
+     */
+    public List<RecipientOutcome> getOutcomes() {
+        final List<RecipientOutcome> snapshot = new ArrayList<>(outcomes.length());
+        for (int i = 0; i < outcomes.length(); i++) {
+            snapshot.add(outcomes.get(i));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Completed once every recipient has reached a final state.
+     *
+     * @return future
+     */
+    public CompletableFuture<Broadcast> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Marks one more recipient as final.
+     */
+    private void finish() {
+        if (remaining.decrementAndGet() == 0) {
+            completion.complete(this);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Open conversation with a phone number: the prompt last sent and what it was about. Immutable,
+ * so a transition replaces the record and concurrent replies race on a single map operation.
+ */
+@Getter
+@ToString
+public class Conversation {
+
+    /**
+     * Prompt awaiting a reply.
+     */
+    private final ConversationPrompt prompt;
+
+    /**
+     * User ID.
+     */
+    private final long userId;
+
+    /**
+     * Event or question ID, depending on the prompt; 0 if unused.
+     */
+    private final long subjectId;
+
+    /**
+     * Epoch millis of the last activity.
+     */
+    private final long lastActivity;
+
+    /**
+     * Initializes an instance of <code>Conversation</code> with the default data.
+     *
+     * @param conversationPrompt ConversationPrompt
+     * @param user               user ID
+     * @param subject            event or question ID
+     * @param activity           epoch millis of the last activity
+     */
+    public Conversation(final ConversationPrompt conversationPrompt,
+                        final long user,
+                        final long subject,
+                        final long activity) {
+        prompt = conversationPrompt;
+        userId = user;
+        subjectId = subject;
+        lastActivity = activity;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.model;
+
+import com.starfireaviation.model.ResponseOption;
+
+/**
+ * Prompt a conversation is waiting on a reply to.
+ */
+public enum ConversationPrompt {
+
+    /**
+     * Verify changed user settings; subject is unused.
+     */
+    VERIFY_SETTINGS,
+    /**
+     * RSVP for an event; subject is the event ID.
+     */
+    EVENT_RSVP,
+    /**
+     * Answer a question; subject is the question ID.
+     */
+    QUESTION;
+
+    /**
+     * Whether a reply answers this prompt.
+     *
+     * @param option ResponseOption
+     * @return true if the reply answers the prompt
+     */
+    public boolean accepts(final ResponseOption option) {
+        if (option == null) {
+            return false;
+        }
+        switch (this) {
+            case VERIFY_SETTINGS:
+            case EVENT_RSVP:
+                return option == ResponseOption.CONFIRM || option == ResponseOption.DECLINE;
+            case QUESTION:
+                return option == ResponseOption.A
+                        || option == ResponseOption.B
+                        || option == ResponseOption.C
+                        || option == ResponseOption.D
+                        || option == ResponseOption.SKIP;
+            default:
+                return false;
+        }
+    }
+
+}
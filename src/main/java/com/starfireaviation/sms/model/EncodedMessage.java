@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Message body with the encoding and number of segments it will be sent as.
+ */
+@Getter
+@ToString
+public class EncodedMessage {
+
+    /**
+     * SMS character encodings.
+     */
+    public enum Encoding {
+
+        /**
+         * GSM 03.38 7-bit default alphabet: 160 septets in one segment, 153 per part when split.
+         */
+        GSM_7,
+
+        /**
+         * UCS-2: 70 code units in one segment, 67 per part when split.
+         */
+        UCS_2
+
+    }
+
+    /**
+     * Body.
+     */
+    private final String text;
+
+    /**
+     * Encoding.
+     */
+    private final Encoding encoding;
+
+    /**
+     * Length in septets (GSM-7) or UTF-16 code units (UCS-2).
+     */
+    private final int length;
+
+    /**
+     * Number of segments.
+     */
+    private final int segments;
+
+    /**
+     * Initializes an instance of <code>EncodedMessage</code> with the default data.
+     *
+     * @param body          body
+     * @param bodyEncoding  encoding
+     * @param bodyLength    length in septets or code units
+     * @param segmentCount  number of segments
+     */
+    public EncodedMessage(final String body,
+                          final Encoding bodyEncoding,
+                          final int bodyLength,
+                          final int segmentCount) {
+        text = body;
+        encoding = bodyEncoding;
+        length = bodyLength;
+        segments = segmentCount;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Pre-rendered event portion of a template model. Immutable, so one instance is shared by every
+ * recipient and every event template.
+ */
+@Getter
+@ToString
+public class EventFragment {
+
+    /**
+     * Fragment used when there is no event.
+     */
+    public static final EventFragment EMPTY = new EventFragment(0L, "", "", "");
+
+    /**
+     * Version of the event the fragment was rendered from.
+     */
+    private final long version;
+
+    /**
+     * Title, time and address block.
+     */
+    private final String event;
+
+    /**
+     * Event title.
+     */
+    private final String eventTitle;
+
+    /**
+     * Day of week the event starts on.
+     */
+    private final String dayOfWeek;
+
+    /**
+     * Initializes an instance of <code>EventFragment</code> with the default data.
+     *
+     * @param eventVersion version of the event
+     * @param eventBlock   title, time and address block
+     * @param title        event title
+     * @param day          day of week
+     */
+    public EventFragment(final long eventVersion,
+                         final String eventBlock,
+                         final String title,
+                         final String day) {
+        version = eventVersion;
+        event = eventBlock;
+        eventTitle = title;
+        dayOfWeek = day;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A validated reply waiting to be processed.
+ */
+@Getter
+@ToString
+public class InboundResponse {
+
+    /**
+     * Sender, as a PhoneNumbers key.
+     */
+    private final long from;
+
+    /**
+     * Classified reply.
+     */
+    private final ParsedResponse response;
+
+    /**
+     * System.nanoTime() at which the reply was received.
+     */
+    private final long receivedAt;
+
+    /**
+     * Initializes an instance of <code>InboundResponse</code> with the default data.
+     *
+     * @param fromAddress    sender, as a PhoneNumbers key
+     * @param parsedResponse ParsedResponse
+     */
+    public InboundResponse(final long fromAddress, final ParsedResponse parsedResponse) {
+        from = fromAddress;
+        response = parsedResponse;
+        receivedAt = System.nanoTime();
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import com.starfireaviation.model.Answer;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.ReferenceMaterial;
+import com.starfireaviation.model.User;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Template model for one message.
+ *
+ * <p>FreeMarker reads variables straight from the user, the shared {@link EventFragment} and the
+ * question, so no map is filled per message and values a template does not use are never
+ * computed. Variables that are not set are missing, as they would be from a map.</p>
+ */
+@Getter
+public class MessageModel implements TemplateHashModel {
+
+    /**
+     * Ground school link.
+     */
+    // TODO property file this value
+    private static final String GROUND_SCHOOL_LINK = "https://groundschool.starfireaviation.com";
+
+    /**
+     * Key prefix of answer choices.
+     */
+    private static final String ANSWER_CHOICE = "answerChoice";
+
+    /**
+     * Key prefix of answer texts.
+     */
+    private static final String ANSWER_TEXT = "answerText";
+
+    /**
+     * User, may be null.
+     */
+    private final User user;
+
+    /**
+     * Event fragment.
+     */
+    private final EventFragment eventFragment;
+
+    /**
+     * Question, may be null.
+     */
+    private final Question question;
+
+    /**
+     * Reply that was not understood.
+     */
+    @Setter
+    private String response;
+
+    /**
+     * Message being resent.
+     */
+    @Setter
+    private String originalMessage;
+
+    /**
+     * Web UI host.
+     */
+    @Setter
+    private String hostUi;
+
+    /**
+     * Initializes an instance of <code>MessageModel</code> with the default data.
+     *
+     * @param recipient User
+     * @param fragment  EventFragment
+     * @param asked     Question
+     */
+    public MessageModel(final User recipient, final EventFragment fragment, final Question asked) {
+        user = recipient;
+        eventFragment = fragment;
+        question = asked;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TemplateModel get(final String key) {
+        switch (key) {
+            case "groundSchoolLink":
+                return scalar(GROUND_SCHOOL_LINK);
+            case "groundSchoolPasswordResetLink":
+                return scalar("");
+            case "firstName":
+                return scalar(user != null ? user.getFirstName() : "");
+            case "lastName":
+                return scalar(user != null ? user.getLastName() : "");
+            case "userId":
+                if (user == null) {
+                    return scalar("");
+                }
+                return user.getId() != null ? new SimpleNumber(user.getId()) : null;
+            case "code":
+                return scalar(user != null ? user.getCode() : "");
+            case "certificateNumber":
+                return scalar(user != null ? user.getCertificateNumber() : "");
+            case "event":
+                return scalar(eventFragment.getEvent());
+            case "eventtitle":
+                return scalar(eventFragment.getEventTitle());
+            case "dayofweek":
+                return scalar(eventFragment.getDayOfWeek());
+            case "response":
+                return scalar(response);
+            case "original_message":
+                return scalar(originalMessage);
+            case "hostui":
+                return scalar(hostUi);
+            default:
+                return question != null ? getQuestionValue(key) : null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    /**
+     * Question portion of the model.
+     *
+     * @param key variable name
+     * @return value, or null if missing
+     */
+    private TemplateModel getQuestionValue(final String key) {
+        switch (key) {
+            case "questionUnit":
+                return scalar(question.getUnit());
+            case "questionSubUnit":
+                return scalar(question.getSubUnit());
+            case "questionLearningStatementCode":
+                return scalar(question.getLearningStatementCode());
+            case "questionText":
+                return scalar(question.getText());
+            case "callbackId":
+                return scalar("question");
+            case "referenceMaterial":
+                return scalar(getReferenceMaterial());
+            default:
+                if (key.startsWith(ANSWER_CHOICE)) {
+                    final Answer answer = getAnswer(key, ANSWER_CHOICE.length());
+                    return answer != null ? scalar(answer.getChoice()) : null;
+                }
+                if (key.startsWith(ANSWER_TEXT)) {
+                    final Answer answer = getAnswer(key, ANSWER_TEXT.length());
+                    return answer != null ? scalar(answer.getText()) : null;
+                }
+                return null;
+        }
+    }
+
+    /**
+     * Reference material links.
+     *
+     * @return links, or null if the question has none
+     */
+    private String getReferenceMaterial() {
+        final List<ReferenceMaterial> referenceMaterials = question.getReferenceMaterials();
+        if (referenceMaterials == null || referenceMaterials.isEmpty()) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder("Reference Material: ");
+        for (ReferenceMaterial referenceMaterial : referenceMaterials) {
+            sb.append("<").append(referenceMaterial.getResourceLocation()).append(">\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Answer addressed by the 1-based number that ends a key.
+     *
+     * @param key    variable name
+     * @param offset where the number starts
+     * @return Answer, or null if there is no such answer
+     */
+    private Answer getAnswer(final String key, final int offset) {
+        final List<Answer> answers = question.getAnswers();
+        if (answers == null || offset == key.length() || key.charAt(offset) == '0') {
+            return null;
+        }
+        int number = 0;
+        for (int i = offset; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            if (c < '0' || c > '9' || number > answers.size()) {
+                return null;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number >= 1 && number <= answers.size() ? answers.get(number - 1) : null;
+    }
+
+    /**
+     * Wraps a string.
+     *
+     * @param value string, may be null
+     * @return scalar, or null if missing
+     */
+    private static TemplateModel scalar(final String value) {
+        return value != null ? new SimpleScalar(value) : null;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+/**
+ * MessageTemplate.
+ */
+public enum MessageTemplate {
+
+    /**
+     * User deleted.
+     */
+    USER_DELETE("user_delete.ftl"),
+    /**
+     * Quiz completed.
+     */
+    QUIZ_COMPLETE("quiz_complete.ftl"),
+    /**
+     * Ground school RSVP.
+     */
+    GS_EVENT_RSVP("gs_event_rsvp.ftl"),
+    /**
+     * Ground school upcoming.
+     */
+    GS_EVENT_UPCOMING("gs_event_upcoming.ftl"),
+    /**
+     * Ground school started.
+     */
+    GS_EVENT_START("gs_event_start.ftl"),
+    /**
+     * Question asked.
+     */
+    QUESTION("question.ftl"),
+    /**
+     * Ground school registered.
+     */
+    GS_EVENT_REGISTER("gs_event_register.ftl"),
+    /**
+     * Ground school unregistered.
+     */
+    GS_EVENT_UNREGISTER("gs_event_unregister.ftl"),
+    /**
+     * User settings verified.
+     */
+    USER_SETTINGS_VERIFIED("user_settings_verified.ftl"),
+    /**
+     * Verify user settings.
+     */
+    USER_VERIFY_SETTINGS("user_verify_settings.ftl"),
+    /**
+     * Response not understood.
+     */
+    RESEND_HEADER("resend_header.ftl"),
+    /**
+     * Password reset.
+     */
+    PASSWORD_RESET("password_reset.ftl", false),
+    /**
+     * Ground school last minute registration.
+     */
+    GS_EVENT_LAST_MIN_REGISTRATION("gs_event_last_min_registration.ftl");
+
+    /**
+     * Template file name.
+     */
+    private final String fileName;
+
+    /**
+     * Whether messages may be held back and merged with others to the same recipient.
+     */
+    private final boolean coalescible;
+
+    /**
+     * MessageTemplate.
+     *
+     * @param name template file name
+     */
+    MessageTemplate(final String name) {
+        this(name, true);
+    }
+
+    /**
+     * MessageTemplate.
+     *
+     * @param name        template file name
+     * @param mayCoalesce whether messages may be merged with others; false for time-critical messages
+     */
+    MessageTemplate(final String name, final boolean mayCoalesce) {
+        fileName = name;
+        coalescible = mayCoalesce;
+    }
+
+    /**
+     * Template file name.
+     *
+     * @return file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Whether messages may be held back and merged with others to the same recipient.
+     *
+     * @return false for time-critical messages
+     */
+    public boolean isCoalescible() {
+        return coalescible;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * OutboundMessage.
+ */
+@Getter
+@ToString(exclude = {"completion", "parts"})
+public class OutboundMessage {
+
+    /**
+     * From address.
+     */
+    private final String from;
+
+    /**
+     * To address.
+     */
+    private final String to;
+
+    /**
+     * Body.
+     */
+    private final String body;
+
+    /**
+     * System.nanoTime() at which the message was created.
+     */
+    private final long createdAt;
+
+    /**
+     * Whether the message may be held back and merged with others to the same recipient.
+     */
+    private final boolean coalescible;
+
+    /**
+     * Messages merged into this one, completed along with it; empty unless coalesced.
+     */
+    private final List<OutboundMessage> parts;
+
+    /**
+     * Completed with the Twilio message SID once the message has been accepted.
+     */
+    private final CompletableFuture<String> completion = new CompletableFuture<>();
+
+    /**
+     * Location of the message in the outbox journal, or -1 if it is not journaled.
+     */
+    @Setter
+    private volatile long journalPosition = -1;
+
+    /**
+     * Send attempts that failed with a retryable error. Only one thread sends a message at a time.
+     */
+    private volatile int attempts;
+
+    /**
+     * Initializes an instance of <code>OutboundMessage</code> with the default data.
+     *
+     * @param fromAddress from address
+     * @param toAddress   to address
+     * @param text        body
+     */
+    public OutboundMessage(final String fromAddress, final String toAddress, final String text) {
+        this(fromAddress, toAddress, text, false);
+    }
+
+    /**
+     * Initializes an instance of <code>OutboundMessage</code> with the default data.
+     *
+     * @param fromAddress from address
+     * @param toAddress   to address
+     * @param text        body
+     * @param mayCoalesce whether the message may be merged with others to the recipient
+     */
+    public OutboundMessage(final String fromAddress,
+                           final String toAddress,
+                           final String text,
+                           final boolean mayCoalesce) {
+        from = fromAddress;
+        to = toAddress;
+        body = text;
+        createdAt = System.nanoTime();
+        coalescible = mayCoalesce;
+        parts = Collections.emptyList();
+    }
+
+    /**
+     * Initializes an instance of <code>OutboundMessage</code> that sends several messages to one
+     * recipient as one. The parts are completed with the outcome of this message.
+     *
+     * @param merged messages merged, in order
+     * @param text   combined body
+     */
+    public OutboundMessage(final List<OutboundMessage> merged, final String text) {
+        final OutboundMessage first = merged.get(0);
+        from = first.getFrom();
+        to = first.getTo();
+        body = text;
+        createdAt = first.getCreatedAt();
+        coalescible = true;
+        parts = Collections.unmodifiableList(new ArrayList<>(merged));
+        completion.whenComplete((sid, e) -> {
+            for (OutboundMessage part : parts) {
+                if (e == null) {
+                    part.getCompletion().complete(sid);
+                } else {
+                    part.getCompletion().completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records a send attempt that failed with a retryable error.
+     *
+     * @return failed attempts so far
+     */
+    public int recordFailedAttempt() {
+        attempts = attempts + 1;
+        return attempts;
+    }
+
+}
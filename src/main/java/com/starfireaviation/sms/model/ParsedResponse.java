@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import com.starfireaviation.model.ResponseOption;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Classification of an inbound reply, computed once and shared by validation and processing.
+ */
+@Getter
+@ToString
+public class ParsedResponse {
+
+    /**
+     * Result for a reply that matches no keyword.
+     */
+    public static final ParsedResponse UNKNOWN = new ParsedResponse(ResponseOption.UNKNOWN, null, false, false, false);
+
+    /**
+     * ResponseOption.
+     */
+    private final ResponseOption option;
+
+    /**
+     * Canonical keyword the reply matched (e.g. UNSUBSCRIBE), or null.
+     */
+    private final String keyword;
+
+    /**
+     * Whether the reply is one of the carrier opt-out keywords.
+     */
+    private final boolean optOut;
+
+    /**
+     * Whether the reply is one of the carrier opt-in keywords (START, UNSTOP, YES). Opt-ins have
+     * no ResponseOption of their own, so their option is UNKNOWN.
+     */
+    private final boolean optIn;
+
+    /**
+     * Whether the opt-in only applies to a number that has opted out (YES). From any other number
+     * the reply is an ordinary, unrecognised answer.
+     */
+    private final boolean conditionalOptIn;
+
+    /**
+     * Initializes an instance of <code>ParsedResponse</code> with the default data.
+     *
+     * @param responseOption ResponseOption
+     * @param matchedKeyword canonical keyword
+     * @param optOutKeyword  whether the keyword is an opt-out
+     * @param optInKeyword   whether the keyword is an opt-in
+     * @param conditional    whether the opt-in only applies to an opted-out number
+     */
+    public ParsedResponse(
+            final ResponseOption responseOption,
+            final String matchedKeyword,
+            final boolean optOutKeyword,
+            final boolean optInKeyword,
+            final boolean conditional) {
+        option = responseOption;
+        keyword = matchedKeyword;
+        optOut = optOutKeyword;
+        optIn = optInKeyword;
+        conditionalOptIn = conditional;
+    }
+
+    /**
+     * Whether the reply matched a keyword.
+     *
+     * @return valid
+     */
+    public boolean isValid() {
+        return option != ResponseOption.UNKNOWN || optIn;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of a broadcast for a single recipient.
+ */
+@Getter
+@ToString
+public class RecipientOutcome {
+
+    /**
+     * Status.
+     */
+    public enum Status {
+        /**
+         * Not yet rendered.
+         */
+        PENDING,
+        /**
+         * Rendered and queued for sending.
+         */
+        QUEUED,
+        /**
+         * Accepted by the provider.
+         */
+        SENT,
+        /**
+         * Could not be rendered or sent.
+         */
+        FAILED,
+        /**
+         * Not sent, e.g. because SMS is disabled.
+         */
+        SKIPPED
+    }
+
+    /**
+     * To address.
+     */
+    private final String to;
+
+    /**
+     * Status.
+     */
+    private final Status status;
+
+    /**
+     * Provider message id, when sent.
+     */
+    private final String sid;
+
+    /**
+     * Failure reason, when failed.
+     */
+    private final String error;
+
+    /**
+     * Initializes an instance of <code>RecipientOutcome</code> with the default data.
+     *
+     * @param toAddress     to address
+     * @param currentStatus Status
+     * @param messageSid    provider message id
+     * @param reason        failure reason
+     */
+    public RecipientOutcome(final String toAddress,
+                            final Status currentStatus,
+                            final String messageSid,
+                            final String reason) {
+        to = toAddress;
+        status = currentStatus;
+        sid = messageSid;
+        error = reason;
+    }
+
+}
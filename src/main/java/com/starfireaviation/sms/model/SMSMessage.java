@@ -16,13 +16,28 @@
 
 package com.starfireaviation.sms.model;
 
+import com.starfireaviation.sms.util.FormUrlEncodedParser;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * SMSMessage.
+ *
+ * <p>Created from a <code>String</code>, every known field is decoded up front. Created from the
+ * raw request bytes, the body is only indexed and each field is decoded the first time its getter
+ * is called; the decoded value is cached in the field.</p>
+ *
+ * <p>Both forms split each pair on its first '=' only. A value containing '=' is kept whole where
+ * earlier versions truncated it at the second '=', and an empty value such as <code>Body=</code>
+ * yields "" where earlier versions yielded null. A key without '=', or a value with a malformed
+ * escape, still yields null. Callers that tested the body for null should test for empty too; the
+ * ResponseParser classifies both as UNKNOWN.</p>
  */
 @Data
 public class SMSMessage {
@@ -127,83 +142,362 @@ public class SMSMessage {
      */
     private String apiVersion;
 
+    /**
+     * Raw request body, when created from bytes.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final byte[] raw;
+
+    /**
+     * Encoded value offsets into raw, two per TwilioPart (-1 when absent).
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int[] spans;
+
     /**
      * Initializes an instance of <code>SMSMessage</code> with the default data.
      *
      * @param message to be parsed
      */
     public SMSMessage(final String message) {
+        raw = null;
+        spans = null;
+        FormUrlEncodedParser.parse(message, this::set);
+    }
+
+    /**
+     * Initializes a lazily decoded instance of <code>SMSMessage</code> over the raw request body.
+     * The array is retained, not copied, and must not be modified afterwards.
+     *
+     * @param message raw request body
+     */
+    public SMSMessage(final byte[] message) {
+        raw = message;
+        spans = new int[2 * TwilioPart.values().length];
+        Arrays.fill(spans, -1);
         if (message != null) {
-            String[] parts = message.split("&");
-            for (String part : parts) {
-                try {
-                    String[] kvPair = part.split("=");
-                    TwilioPart twilioPart = TwilioPart.valueOf(kvPair[0]);
-                    switch (twilioPart) {
-                        case ToCountry:
-                            toCountry = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case ToState:
-                            toState = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case SmsMessageSid:
-                            smsMessageSid = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case NumMedia:
-                            numMedia = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case ToCity:
-                            toCity = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case FromZip:
-                            fromZip = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case SmsSid:
-                            smsSid = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case FromState:
-                            fromState = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case SmsStatus:
-                            smsStatus = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case FromCity:
-                            fromCity = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case Body:
-                            body = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case FromCountry:
-                            fromCountry = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case To:
-                            destination = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case ToZip:
-                            toZip = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case NumSegments:
-                            numSegments = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case MessageSid:
-                            messageSid = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case AccountSid:
-                            accountSid = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case From:
-                            from = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        case ApiVersion:
-                            apiVersion = URLDecoder.decode(kvPair[1], StandardCharsets.UTF_8);
-                            break;
-                        default:
-                            break;
-                    }
-                } catch (Exception e) {
-                    // Do nothing
-                }
-            }
+            FormUrlEncodedParser.index(message, spans);
+        }
+    }
+
+    /**
+     * ToCountry.
+     *
+     * @return ToCountry
+     */
+    public String getToCountry() {
+        if (toCountry == null) {
+            toCountry = decode(TwilioPart.ToCountry);
+        }
+        return toCountry;
+    }
+
+    /**
+     * ToState.
+     *
+     * @return ToState
+     */
+    public String getToState() {
+        if (toState == null) {
+            toState = decode(TwilioPart.ToState);
+        }
+        return toState;
+    }
+
+    /**
+     * SmsMessageSid.
+     *
+     * @return SmsMessageSid
+     */
+    public String getSmsMessageSid() {
+        if (smsMessageSid == null) {
+            smsMessageSid = decode(TwilioPart.SmsMessageSid);
+        }
+        return smsMessageSid;
+    }
+
+    /**
+     * NumMedia.
+     *
+     * @return NumMedia
+     */
+    public String getNumMedia() {
+        if (numMedia == null) {
+            numMedia = decode(TwilioPart.NumMedia);
+        }
+        return numMedia;
+    }
+
+    /**
+     * ToCity.
+     *
+     * @return ToCity
+     */
+    public String getToCity() {
+        if (toCity == null) {
+            toCity = decode(TwilioPart.ToCity);
+        }
+        return toCity;
+    }
+
+    /**
+     * FromZip.
+     *
+     * @return FromZip
+     */
+    public String getFromZip() {
+        if (fromZip == null) {
+            fromZip = decode(TwilioPart.FromZip);
+        }
+        return fromZip;
+    }
+
+    /**
+     * SmsSid.
+     *
+     * @return SmsSid
+     */
+    public String getSmsSid() {
+        if (smsSid == null) {
+            smsSid = decode(TwilioPart.SmsSid);
+        }
+        return smsSid;
+    }
+
+    /**
+     * FromState.
+     *
+     * @return FromState
+     */
+    public String getFromState() {
+        if (fromState == null) {
+            fromState = decode(TwilioPart.FromState);
+        }
+        return fromState;
+    }
+
+    /**
+     * SmsStatus.
+     *
+     * @return SmsStatus
+     */
+    public String getSmsStatus() {
+        if (smsStatus == null) {
+            smsStatus = decode(TwilioPart.SmsStatus);
+        }
+        return smsStatus;
+    }
+
+    /**
+     * FromCity.
+     *
+     * @return FromCity
+     */
+    public String getFromCity() {
+        if (fromCity == null) {
+            fromCity = decode(TwilioPart.FromCity);
+        }
+        return fromCity;
+    }
+
+    /**
+     * Body.
+     *
+     * @return Body
+     */
+    public String getBody() {
+        if (body == null) {
+            body = decode(TwilioPart.Body);
+        }
+        return body;
+    }
+
+    /**
+     * FromCountry.
+     *
+     * @return FromCountry
+     */
+    public String getFromCountry() {
+        if (fromCountry == null) {
+            fromCountry = decode(TwilioPart.FromCountry);
+        }
+        return fromCountry;
+    }
+
+    /**
+     * To.
+     *
+     * @return To
+     */
+    public String getDestination() {
+        if (destination == null) {
+            destination = decode(TwilioPart.To);
+        }
+        return destination;
+    }
+
+    /**
+     * ToZip.
+     *
+     * @return ToZip
+     */
+    public String getToZip() {
+        if (toZip == null) {
+            toZip = decode(TwilioPart.ToZip);
+        }
+        return toZip;
+    }
+
+    /**
+     * NumSegments.
+     *
+     * @return NumSegments
+     */
+    public String getNumSegments() {
+        if (numSegments == null) {
+            numSegments = decode(TwilioPart.NumSegments);
+        }
+        return numSegments;
+    }
+
+    /**
+     * MessageSid.
+     *
+     * @return MessageSid
+     */
+    public String getMessageSid() {
+        if (messageSid == null) {
+            messageSid = decode(TwilioPart.MessageSid);
+        }
+        return messageSid;
+    }
+
+    /**
+     * AccountSid.
+     *
+     * @return AccountSid
+     */
+    public String getAccountSid() {
+        if (accountSid == null) {
+            accountSid = decode(TwilioPart.AccountSid);
+        }
+        return accountSid;
+    }
+
+    /**
+     * From.
+     *
+     * @return From
+     */
+    public String getFrom() {
+        if (from == null) {
+            from = decode(TwilioPart.From);
+        }
+        return from;
+    }
+
+    /**
+     * ApiVersion.
+     *
+     * @return ApiVersion
+     */
+    public String getApiVersion() {
+        if (apiVersion == null) {
+            apiVersion = decode(TwilioPart.ApiVersion);
+        }
+        return apiVersion;
+    }
+
+    /**
+     * Decodes a field from the raw body.
+     *
+     * @param part TwilioPart
+     * @return decoded value, or null if absent, malformed or not created from bytes
+     */
+    private String decode(final TwilioPart part) {
+        if (spans == null) {
+            return null;
+        }
+        final int start = spans[2 * part.ordinal()];
+        if (start < 0) {
+            return null;
+        }
+        return FormUrlEncodedParser.decode(raw, start, spans[2 * part.ordinal() + 1]);
+    }
+
+    /**
+     * Sets a single decoded field.
+     *
+     * @param part  TwilioPart
+     * @param value decoded value
+     */
+    private void set(final TwilioPart part, final String value) {
+        switch (part) {
+            case ToCountry:
+                toCountry = value;
+                break;
+            case ToState:
+                toState = value;
+                break;
+            case SmsMessageSid:
+                smsMessageSid = value;
+                break;
+            case NumMedia:
+                numMedia = value;
+                break;
+            case ToCity:
+                toCity = value;
+                break;
+            case FromZip:
+                fromZip = value;
+                break;
+            case SmsSid:
+                smsSid = value;
+                break;
+            case FromState:
+                fromState = value;
+                break;
+            case SmsStatus:
+                smsStatus = value;
+                break;
+            case FromCity:
+                fromCity = value;
+                break;
+            case Body:
+                body = value;
+                break;
+            case FromCountry:
+                fromCountry = value;
+                break;
+            case To:
+                destination = value;
+                break;
+            case ToZip:
+                toZip = value;
+                break;
+            case NumSegments:
+                numSegments = value;
+                break;
+            case MessageSid:
+                messageSid = value;
+                break;
+            case AccountSid:
+                accountSid = value;
+                break;
+            case From:
+                from = value;
+                break;
+            case ApiVersion:
+                apiVersion = value;
+                break;
+            default:
+                break;
         }
     }
 
@@ -98,4 +98,100 @@ public enum TwilioPart {
      */
     ApiVersion;
 
+    /**
+     * Size of the lookup table (power of two, at least twice the number of parts).
+     */
+    private static final int TABLE_SIZE = 64;
+
+    /**
+     * Open-addressing lookup table indexed by the key's hash.
+     */
+    private static final TwilioPart[] TABLE = new TwilioPart[TABLE_SIZE];
+
+    static {
+        for (TwilioPart part : values()) {
+            int index = part.name().hashCode() & (TABLE_SIZE - 1);
+            while (TABLE[index] != null) {
+                index = (index + 1) & (TABLE_SIZE - 1);
+            }
+            TABLE[index] = part;
+        }
+    }
+
+    /**
+     * Looks up the part named by a region of a string, without allocating or throwing for
+     * unknown names.
+     *
+     * @param source string containing the name
+     * @param start  first char of the name (inclusive)
+     * @param end    last char of the name (exclusive)
+     * @return TwilioPart, or null if the name is not a known part
+     */
+    public static TwilioPart lookup(final String source, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        final int length = end - start;
+        int index = hash & (TABLE_SIZE - 1);
+        TwilioPart part = TABLE[index];
+        while (part != null) {
+            final String name = part.name();
+            if (name.length() == length && source.regionMatches(start, name, 0, length)) {
+                return part;
+            }
+            index = (index + 1) & (TABLE_SIZE - 1);
+            part = TABLE[index];
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the part named by a region of an ASCII byte array, without allocating or throwing
+     * for unknown names.
+     *
+     * @param source bytes containing the name
+     * @param start  first byte of the name (inclusive)
+     * @param end    last byte of the name (exclusive)
+     * @return TwilioPart, or null if the name is not a known part
+     */
+    public static TwilioPart lookup(final byte[] source, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (source[i] & 0xFF);
+        }
+        final int length = end - start;
+        int index = hash & (TABLE_SIZE - 1);
+        TwilioPart part = TABLE[index];
+        while (part != null) {
+            if (matches(part.name(), source, start, length)) {
+                return part;
+            }
+            index = (index + 1) & (TABLE_SIZE - 1);
+            part = TABLE[index];
+        }
+        return null;
+    }
+
+    /**
+     * Compares a name with a region of a byte array.
+     *
+     * @param name   name
+     * @param source bytes
+     * @param start  first byte (inclusive)
+     * @param length region length
+     * @return true if equal
+     */
+    private static boolean matches(final String name, final byte[] source, final int start, final int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
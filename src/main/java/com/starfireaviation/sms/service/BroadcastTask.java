@@ -0,0 +1,80 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Fork-join task that applies a per-recipient action over a range of recipient indexes.
+ */
+class BroadcastTask extends RecursiveAction {
+
+    /**
+     * Ranges at or below this size are processed without further splitting.
+     */
+    private static final int THRESHOLD = 32;
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * First index (inclusive).
+     */
+    private final int from;
+
+    /**
+     * Last index (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Per-recipient action.
+     */
+    private final transient IntConsumer action;
+
+    /**
+     * BroadcastTask.
+     *
+     * @param start     first index (inclusive)
+     * @param end       last index (exclusive)
+     * @param recipient per-recipient action
+     */
+    BroadcastTask(final int start, final int end, final IntConsumer recipient) {
+        from = start;
+        to = end;
+        action = recipient;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        invokeAll(new BroadcastTask(from, middle, action), new BroadcastTask(middle, to, action));
+    }
+
+}
@@ -0,0 +1,364 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.Conversation;
+import com.starfireaviation.sms.model.ConversationPrompt;
+import com.starfireaviation.sms.util.LongHashMap;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import com.starfireaviation.sms.util.StripedExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Open conversations, keyed by phone number (see {@link PhoneNumbers}).
+ *
+ * <p>Sending a prompt begins (or replaces) the conversation for the recipient's number; a reply
+ * that answers it completes the conversation with a conditional remove, so two concurrent replies
+ * cannot both act on one prompt. Conversations idle for longer than the idle timeout are ignored
+ * on lookup and dropped by a periodic sweep. Conversations are held in primitive-keyed
+ * {@link LongHashMap} segments, each guarded by its own lock, so a lookup neither boxes the number
+ * nor contends with lookups for numbers in other segments.</p>
+ *
+ * <p>When enabled, the sweep also writes a snapshot of the open conversations if any changed,
+ * and the snapshot is loaded on startup. The snapshot is written to a temporary file, forced and
+ * then renamed over the previous one, so a crash leaves either the old or the new snapshot. It is
+ * laid out as magic (int), version (int) and count (int), then per conversation the phone number
+ * key (long), prompt ordinal (byte), user ID, subject ID and last activity (longs). A snapshot of
+ * another version is ignored.</p>
+ */
+@Slf4j
+public class ConversationStore {
+
+    /**
+     * Snapshot file magic.
+     */
+    private static final int MAGIC = 0x534d5343;
+
+    /**
+     * Snapshot format version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Number of segments.
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Conversation settings.
+     */
+    private final ApplicationProperties.Conversations settings;
+
+    /**
+     * Snapshot file.
+     */
+    private final Path snapshotFile;
+
+    /**
+     * Open conversations by phone number, in segments; each segment is its own lock.
+     */
+    private final LongHashMap<Conversation>[] segments;
+
+    /**
+     * Whether conversations changed since the last snapshot.
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * Runs the sweep.
+     */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * ConversationStore.
+     *
+     * @param conversationSettings ApplicationProperties.Conversations
+     * @param registry             MeterRegistry
+     */
+    @SuppressWarnings("unchecked")
+    public ConversationStore(final ApplicationProperties.Conversations conversationSettings,
+                             final MeterRegistry registry) {
+        settings = conversationSettings;
+        snapshotFile = Paths.get(settings.getSnapshotFile());
+        segments = new LongHashMap[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LongHashMap<>();
+        }
+        Gauge.builder("sms.conversations.open", this, ConversationStore::size)
+                .description("Conversations waiting on a reply")
+                .register(registry);
+    }
+
+    /**
+     * Loads the snapshot, if enabled, and starts the sweep.
+     */
+    public void start() {
+        if (settings.isSnapshotEnabled()) {
+            try {
+                load();
+            } catch (IOException e) {
+                log.warn(String.format("Unable to load conversation snapshot [%s]: %s", snapshotFile, e.getMessage()));
+            }
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "sms-conversations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(
+                this::sweep,
+                settings.getSweepInterval(),
+                settings.getSweepInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sweep and writes a final snapshot, if enabled.
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        if (settings.isSnapshotEnabled()) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                log.warn(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Begins a conversation, replacing any open one for the number.
+     *
+     * @param phone     phone number key
+     * @param prompt    ConversationPrompt
+     * @param userId    user ID
+     * @param subjectId event or question ID, 0 if unused
+     */
+    public void begin(final long phone, final ConversationPrompt prompt, final long userId, final long subjectId) {
+        if (phone == PhoneNumbers.INVALID) {
+            return;
+        }
+        final Conversation conversation = new Conversation(prompt, userId, subjectId, System.currentTimeMillis());
+        final LongHashMap<Conversation> segment = segment(phone);
+        synchronized (segment) {
+            segment.put(phone, conversation);
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Open conversation for a number.
+     *
+     * @param phone phone number key
+     * @return Conversation, or null if none is open
+     */
+    public Conversation get(final long phone) {
+        final LongHashMap<Conversation> segment = segment(phone);
+        synchronized (segment) {
+            final Conversation conversation = segment.get(phone);
+            if (conversation != null && isIdle(conversation, System.currentTimeMillis())) {
+                segment.remove(phone);
+                dirty.set(true);
+                return null;
+            }
+            return conversation;
+        }
+    }
+
+    /**
+     * Completes a conversation, unless it was replaced or completed concurrently.
+     *
+     * @param phone        phone number key
+     * @param conversation Conversation returned by {@link #get(long)}
+     * @return true if this call completed it
+     */
+    public boolean complete(final long phone, final Conversation conversation) {
+        final LongHashMap<Conversation> segment = segment(phone);
+        synchronized (segment) {
+            if (!segment.remove(phone, conversation)) {
+                return false;
+            }
+        }
+        dirty.set(true);
+        return true;
+    }
+
+    /**
+     * Number of open conversations, including idle ones not yet swept.
+     *
+     * @return count
+     */
+    public int size() {
+        int size = 0;
+        for (LongHashMap<Conversation> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops idle conversations and writes the snapshot, if enabled and anything changed.
+     */
+    void sweep() {
+        final long now = System.currentTimeMillis();
+        for (LongHashMap<Conversation> segment : segments) {
+            final int removed;
+            synchronized (segment) {
+                removed = segment.removeIf((phone, conversation) -> isIdle(conversation, now));
+            }
+            if (removed > 0) {
+                dirty.set(true);
+            }
+        }
+        if (settings.isSnapshotEnabled()) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                log.warn(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot if conversations changed since the last one.
+     *
+     * @throws IOException when the snapshot cannot be written
+     */
+    void snapshot() throws IOException {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        final Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = directory.resolve(snapshotFile.getFileName() + ".tmp");
+        final LongHashMap<Conversation> copy = new LongHashMap<>(size());
+        for (LongHashMap<Conversation> segment : segments) {
+            synchronized (segment) {
+                segment.forEach(copy::put);
+            }
+        }
+        final long[] phones = new long[copy.size()];
+        final Conversation[] open = new Conversation[copy.size()];
+        final int[] count = new int[1];
+        copy.forEach((phone, conversation) -> {
+            phones[count[0]] = phone;
+            open[count[0]++] = conversation;
+        });
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(phones.length);
+            for (int i = 0; i < phones.length; i++) {
+                final Conversation conversation = open[i];
+                out.writeLong(phones[i]);
+                out.writeByte(conversation.getPrompt().ordinal());
+                out.writeLong(conversation.getUserId());
+                out.writeLong(conversation.getSubjectId());
+                out.writeLong(conversation.getLastActivity());
+            }
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            dirty.set(true);
+            throw e;
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot, skipping conversations that went idle while stopped.
+     *
+     * @throws IOException when the snapshot cannot be read
+     */
+    void load() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        final ConversationPrompt[] prompts = ConversationPrompt.values();
+        final long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(String.format("Unrecognized conversation snapshot [%s]", snapshotFile));
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final long phone = in.readLong();
+                final int prompt = in.readUnsignedByte();
+                final Conversation conversation = new Conversation(
+                        prompt < prompts.length ? prompts[prompt] : null,
+                        in.readLong(),
+                        in.readLong(),
+                        in.readLong());
+                if (conversation.getPrompt() != null && !isIdle(conversation, now)) {
+                    final LongHashMap<Conversation> segment = segment(phone);
+                    synchronized (segment) {
+                        if (!segment.containsKey(phone)) {
+                            segment.put(phone, conversation);
+                        }
+                    }
+                }
+            }
+        }
+        log.info(String.format("Loaded %d conversations from [%s]", size(), snapshotFile));
+    }
+
+    /**
+     * Segment holding a number.
+     *
+     * @param phone phone number key
+     * @return segment
+     */
+    private LongHashMap<Conversation> segment(final long phone) {
+        return segments[StripedExecutor.stripe(phone, SEGMENTS)];
+    }
+
+    /**
+     * Whether a conversation has been idle for longer than the idle timeout.
+     *
+     * @param conversation Conversation
+     * @param now          epoch millis
+     * @return true if idle
+     */
+    private boolean isIdle(final Conversation conversation, final long now) {
+        return now - conversation.getLastActivity() > settings.getIdleTimeout();
+    }
+
+}
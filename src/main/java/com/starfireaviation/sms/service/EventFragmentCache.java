@@ -0,0 +1,139 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.starfireaviation.model.Address;
+import com.starfireaviation.model.Event;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.EventFragment;
+import com.starfireaviation.sms.util.TemplateUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Cache of rendered event fragments, keyed by event ID.
+ *
+ * <p>Every recipient of an event gets the same title, time and address block, so it is rendered
+ * once and shared across recipients and event templates. Each fragment remembers the version of
+ * the event it was rendered from; the version is a hash of the fields the fragment is built from,
+ * so an edited event is re-rendered on its next use without anyone having to invalidate it.
+ * Entries are bounded and expire like the model cache.</p>
+ */
+public class EventFragmentCache {
+
+    /**
+     * Fragments by event ID.
+     */
+    private final Cache<Long, EventFragment> fragments;
+
+    /**
+     * Fragments re-rendered because the event changed.
+     */
+    private final Counter staleCounter;
+
+    /**
+     * EventFragmentCache.
+     *
+     * @param settings ApplicationProperties.ModelCache
+     * @param registry MeterRegistry
+     */
+    public EventFragmentCache(final ApplicationProperties.ModelCache settings, final MeterRegistry registry) {
+        fragments = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(settings.getExpireAfterWrite()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, fragments, "sms.event.fragments");
+        staleCounter = Counter.builder("sms.event.fragments.stale")
+                .description("Event fragments re-rendered because the event changed")
+                .register(registry);
+    }
+
+    /**
+     * Gets the fragment for an event, rendering it if missing or out of date.
+     *
+     * @param event Event, may be null
+     * @return EventFragment
+     */
+    public EventFragment get(final Event event) {
+        if (event == null) {
+            return EventFragment.EMPTY;
+        }
+        final long version = version(event);
+        if (event.getId() == null) {
+            return TemplateUtil.buildEventFragment(event, version);
+        }
+        EventFragment fragment = fragments.getIfPresent(event.getId());
+        if (fragment == null || fragment.getVersion() != version) {
+            if (fragment != null) {
+                staleCounter.increment();
+            }
+            fragment = TemplateUtil.buildEventFragment(event, version);
+            fragments.put(event.getId(), fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Drops the fragment for an event.
+     *
+     * @param eventId event ID
+     */
+    public void invalidate(final Long eventId) {
+        if (eventId != null) {
+            fragments.invalidate(eventId);
+        }
+    }
+
+    /**
+     * Number of cached fragments.
+     *
+     * @return estimated count
+     */
+    public long size() {
+        return fragments.estimatedSize();
+    }
+
+    /**
+     * Version of an event: a hash of the fields its fragment is rendered from.
+     *
+     * @param event Event
+     * @return version
+     */
+    static long version(final Event event) {
+        long hash = Objects.hashCode(event.getTitle());
+        hash = 31 * hash + Objects.hashCode(event.getStartTime());
+        final Address address = event.getAddress();
+        if (address != null) {
+            hash = 31 * hash + Objects.hashCode(address.getAddressLine1());
+            hash = 31 * hash + Objects.hashCode(address.getAddressLine2());
+            hash = 31 * hash + Objects.hashCode(address.getCity());
+            hash = 31 * hash + Objects.hashCode(address.getState());
+            hash = 31 * hash + Objects.hashCode(address.getZipCode());
+        } else {
+            hash = 31 * hash - 1;
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.InboundResponse;
+import com.starfireaviation.sms.util.StripedExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous processing stage for inbound replies.
+ *
+ * <p>The webhook only validates a reply and hands it to this stage, so Twilio gets its response
+ * before any lookups or follow-up sends happen. Replies are processed on a {@link StripedExecutor}
+ * keyed by sender, so two quick replies from one number are handled in the order they arrived
+ * while different numbers are processed in parallel. When a stripe is full the webhook thread
+ * waits for room, which slows Twilio down instead of dropping replies; once the stage has been
+ * shut down the webhook thread processes the reply itself. Inbound traffic is bursty but light,
+ * so unlike {@link OutboundPipeline} the threads block on their queues instead of spinning.</p>
+ *
+ * <p>Queue depth, the age of the oldest queued reply and the time each reply waited are exposed as
+ * sms.inbound.queue.depth, sms.inbound.queue.age and sms.inbound.queue.wait, and the depth of each
+ * stripe as sms.inbound.stripe.depth.</p>
+ */
+@Slf4j
+public class InboundProcessor {
+
+    /**
+     * How long shutdown waits for queued replies to be processed.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Processing stripes.
+     */
+    private final StripedExecutor executor;
+
+    /**
+     * Processes a single reply.
+     */
+    private final Consumer<InboundResponse> handler;
+
+    /**
+     * Time from receipt to processing.
+     */
+    private final Timer queueWaitTimer;
+
+    /**
+     * InboundProcessor.
+     *
+     * @param settings ApplicationProperties.Inbound
+     * @param process  processes a single reply
+     * @param registry MeterRegistry
+     */
+    public InboundProcessor(final ApplicationProperties.Inbound settings,
+                            final Consumer<InboundResponse> process,
+                            final MeterRegistry registry) {
+        handler = process;
+        final int consumers = Math.max(1, settings.getConsumers());
+        executor = new StripedExecutor(
+                "sms-inbound-",
+                consumers,
+                Math.max(1, settings.getQueueCapacity() / consumers));
+        Gauge.builder("sms.inbound.queue.depth", executor, StripedExecutor::getQueueDepth)
+                .description("Replies waiting to be processed")
+                .register(registry);
+        for (int i = 0; i < consumers; i++) {
+            final int stripe = i;
+            Gauge.builder("sms.inbound.stripe.depth", executor, striped -> striped.getQueueDepth(stripe))
+                    .description("Replies waiting to be processed, by stripe")
+                    .tag("stripe", String.valueOf(stripe))
+                    .register(registry);
+        }
+        Gauge.builder("sms.inbound.queue.age", this, InboundProcessor::getOldestAgeSeconds)
+                .description("Age of the oldest reply waiting to be processed")
+                .baseUnit("seconds")
+                .register(registry);
+        queueWaitTimer = Timer.builder("sms.inbound.queue.wait")
+                .description("Time from receipt to processing")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Queues a reply for processing.
+     *
+     * @param response InboundResponse
+     */
+    public void submit(final InboundResponse response) {
+        executor.execute(response.getFrom(), new Task(response));
+    }
+
+    /**
+     * Current queue depth.
+     *
+     * @return number of queued replies
+     */
+    public int getQueueDepth() {
+        return executor.getQueueDepth();
+    }
+
+    /**
+     * Stops accepting replies and waits for the queued ones to be processed.
+     */
+    public void shutdown() {
+        if (!executor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn(String.format("Inbound processor stopped with %d replies unprocessed", executor.getQueueDepth()));
+        }
+    }
+
+    /**
+     * Age of the oldest queued reply.
+     *
+     * @return seconds, 0 when the queues are empty
+     */
+    private double getOldestAgeSeconds() {
+        final long now = System.nanoTime();
+        long oldest = 0;
+        for (int i = 0; i < executor.getStripes(); i++) {
+            final Runnable head = executor.peek(i);
+            if (head instanceof Task) {
+                oldest = Math.max(oldest, now - ((Task) head).response.getReceivedAt());
+            }
+        }
+        return (double) oldest / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Processes a queued reply.
+     */
+    private final class Task implements Runnable {
+
+        /**
+         * InboundResponse.
+         */
+        private final InboundResponse response;
+
+        /**
+         * Task.
+         *
+         * @param inboundResponse InboundResponse
+         */
+        private Task(final InboundResponse inboundResponse) {
+            response = inboundResponse;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            queueWaitTimer.record(System.nanoTime() - response.getReceivedAt(), TimeUnit.NANOSECONDS);
+            try {
+                handler.accept(response);
+            } catch (RuntimeException e) {
+                log.warn(e.getMessage());
+            }
+        }
+
+    }
+
+}
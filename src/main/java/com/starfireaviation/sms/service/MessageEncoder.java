@@ -0,0 +1,102 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.EncodedMessage;
+import com.starfireaviation.sms.model.MessageTemplate;
+import com.starfireaviation.sms.util.SmsEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Encoding stage between rendering and sending.
+ *
+ * <p>Determines whether a rendered message goes out as GSM-7 or UCS-2 and how many segments it
+ * takes. A message that would be UCS-2 is transliterated when enabled, and the transliterated
+ * body is used only if it is GSM-7. Segments are recorded per template and encoding as
+ * sms.outbound.segments.</p>
+ */
+public class MessageEncoder {
+
+    /**
+     * Encoding settings.
+     */
+    private final ApplicationProperties.Encoding settings;
+
+    /**
+     * Segments per message, by template and encoding ordinal.
+     */
+    private final Map<MessageTemplate, DistributionSummary[]> segmentSummaries =
+            new EnumMap<>(MessageTemplate.class);
+
+    /**
+     * Messages kept in GSM-7 by transliteration, by template.
+     */
+    private final Map<MessageTemplate, Counter> transliteratedCounters = new EnumMap<>(MessageTemplate.class);
+
+    /**
+     * MessageEncoder.
+     *
+     * @param encoding ApplicationProperties.Encoding
+     * @param registry MeterRegistry
+     */
+    public MessageEncoder(final ApplicationProperties.Encoding encoding, final MeterRegistry registry) {
+        settings = encoding;
+        for (MessageTemplate messageTemplate : MessageTemplate.values()) {
+            final EncodedMessage.Encoding[] encodings = EncodedMessage.Encoding.values();
+            final DistributionSummary[] summaries = new DistributionSummary[encodings.length];
+            for (EncodedMessage.Encoding value : encodings) {
+                summaries[value.ordinal()] = DistributionSummary.builder("sms.outbound.segments")
+                        .description("Segments per outbound message")
+                        .tag("template", messageTemplate.name())
+                        .tag("encoding", value.name())
+                        .register(registry);
+            }
+            segmentSummaries.put(messageTemplate, summaries);
+            transliteratedCounters.put(messageTemplate, Counter.builder("sms.outbound.transliterated")
+                    .description("Messages kept in GSM-7 by transliteration")
+                    .tag("template", messageTemplate.name())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Encodes a rendered message.
+     *
+     * @param messageTemplate MessageTemplate the body was rendered from
+     * @param body            rendered body
+     * @return EncodedMessage
+     */
+    public EncodedMessage encode(final MessageTemplate messageTemplate, final String body) {
+        EncodedMessage encoded = SmsEncoding.encode(body);
+        if (encoded.getEncoding() == EncodedMessage.Encoding.UCS_2 && settings.isTransliterate()) {
+            final EncodedMessage transliterated = SmsEncoding.encode(SmsEncoding.transliterate(body));
+            if (transliterated.getEncoding() == EncodedMessage.Encoding.GSM_7) {
+                transliteratedCounters.get(messageTemplate).increment();
+                encoded = transliterated;
+            }
+        }
+        segmentSummaries.get(messageTemplate)[encoded.getEncoding().ordinal()].record(encoded.getSegments());
+        return encoded;
+    }
+
+}
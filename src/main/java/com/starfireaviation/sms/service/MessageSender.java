@@ -0,0 +1,66 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.model.OutboundMessage;
+
+/**
+ * MessageSender.
+ */
+public interface MessageSender {
+
+    /**
+     * Hands a message to the SMS provider. Blocks until the provider has accepted or rejected it.
+     *
+     * @param message OutboundMessage
+     * @return provider message id
+     */
+    String send(OutboundMessage message);
+
+    /**
+     * Whether a failed send may succeed if tried again later.
+     *
+     * @param e failure thrown by send
+     * @return retryable
+     */
+    default boolean isRetryable(final RuntimeException e) {
+        return true;
+    }
+
+    /**
+     * Whether a failed send counts against the health of the sender number. Failures caused by the
+     * recipient, such as an invalid or unsubscribed number, should not take a sender out of
+     * rotation.
+     *
+     * @param e failure thrown by send
+     * @return true if the sender number or the provider is at fault
+     */
+    default boolean isSenderFailure(final RuntimeException e) {
+        return isRetryable(e);
+    }
+
+    /**
+     * Whether a send failed because the recipient has opted out with the provider.
+     *
+     * @param e failure thrown by send
+     * @return true if the recipient opted out
+     */
+    default boolean isOptedOut(final RuntimeException e) {
+        return false;
+    }
+
+}
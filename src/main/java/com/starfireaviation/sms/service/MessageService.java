@@ -22,24 +22,37 @@ import com.starfireaviation.model.Message;
 import com.starfireaviation.model.NotificationType;
 import com.starfireaviation.model.Question;
 import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.ResponseOption;
 import com.starfireaviation.model.User;
 import com.starfireaviation.sms.config.ApplicationProperties;
-import com.starfireaviation.sms.config.CommonConstants;
 import com.starfireaviation.sms.exception.InvalidPayloadException;
+import com.starfireaviation.sms.exception.OptedOutException;
+import com.starfireaviation.sms.model.Broadcast;
+import com.starfireaviation.sms.model.Conversation;
+import com.starfireaviation.sms.model.ConversationPrompt;
+import com.starfireaviation.sms.model.EventFragment;
+import com.starfireaviation.sms.model.InboundResponse;
+import com.starfireaviation.sms.model.MessageModel;
+import com.starfireaviation.sms.model.MessageTemplate;
+import com.starfireaviation.sms.model.OutboundMessage;
+import com.starfireaviation.sms.model.ParsedResponse;
 import com.starfireaviation.sms.model.SMSMessage;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import com.starfireaviation.sms.util.RecentKeySet;
 import com.starfireaviation.sms.util.TemplateUtil;
 import com.starfireaviation.sms.validation.ResponseValidator;
-import com.twilio.Twilio;
-import com.twilio.type.PhoneNumber;
-import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * MessageService.
@@ -48,35 +61,137 @@ import java.util.regex.Pattern;
 public class MessageService {
 
     /**
-     * TN_PATTERN.
+     * ApplicationProperties.
      */
-    private static final Pattern TN_PATTERN = Pattern.compile(".*\\+1(\\d{10}).*");
+    private final ApplicationProperties applicationProperties;
 
     /**
-     * TEMPLATE_LOCATION.
+     * TemplateRegistry.
      */
-    private static final String TEMPLATE_LOCATION = "/templates";
+    private final TemplateRegistry templateRegistry;
 
     /**
-     * ApplicationProperties.
+     * MessageEncoder.
      */
-    private final ApplicationProperties applicationProperties;
+    private final MessageEncoder messageEncoder;
+
+    /**
+     * OutboundPipeline.
+     */
+    private final OutboundPipeline outboundPipeline;
+
+    /**
+     * SenderNumberPool.
+     */
+    private final SenderNumberPool senderNumberPool;
+
+    /**
+     * InboundProcessor.
+     */
+    private final InboundProcessor inboundProcessor;
+
+    /**
+     * ModelCache.
+     */
+    private final ModelCache modelCache;
+
+    /**
+     * EventFragmentCache.
+     */
+    private final EventFragmentCache eventFragmentCache;
+
+    /**
+     * ConversationStore.
+     */
+    private final ConversationStore conversationStore;
+
+    /**
+     * OptOutRegistry.
+     */
+    private final OptOutRegistry optOutRegistry;
+
+    /**
+     * Messages not sent because the recipient opted out.
+     */
+    private final Counter suppressedCounter;
+
+    /**
+     * Recently received MessageSids.
+     */
+    private final RecentKeySet recentMessageSids;
 
     /**
-     * FreeMarker Configuration.
+     * Webhook retries dropped.
      */
-    private final Configuration freemarkerConfig;
+    private final Counter duplicateCounter;
+
+    /**
+     * Inbound replies, by classification.
+     */
+    private final Map<ResponseOption, Counter> responseCounters = new EnumMap<>(ResponseOption.class);
+
+    /**
+     * Pool used to render broadcasts.
+     */
+    private final ForkJoinPool broadcastPool;
 
     /**
      * MessageService.
      *
-     * @param aProps ApplicationProperties
-     * @param config Configuration
+     * @param aProps        ApplicationProperties
+     * @param registry      TemplateRegistry
+     * @param encoder       MessageEncoder
+     * @param pipeline      OutboundPipeline
+     * @param pool          SenderNumberPool
+     * @param inbound       InboundProcessor
+     * @param cache         ModelCache
+     * @param fragments     EventFragmentCache
+     * @param conversations ConversationStore
+     * @param optOuts       OptOutRegistry
+     * @param broadcasts    pool used to render broadcasts
+     * @param messageSids   recently received MessageSids
+     * @param meterRegistry MeterRegistry
      */
     public MessageService(final ApplicationProperties aProps,
-                      final Configuration config) {
+                      final TemplateRegistry registry,
+                      final MessageEncoder encoder,
+                      final OutboundPipeline pipeline,
+                      final SenderNumberPool pool,
+                      final InboundProcessor inbound,
+                      final ModelCache cache,
+                      final EventFragmentCache fragments,
+                      final ConversationStore conversations,
+                      final OptOutRegistry optOuts,
+                      final ForkJoinPool broadcasts,
+                      final RecentKeySet messageSids,
+                      final MeterRegistry meterRegistry) {
         applicationProperties = aProps;
-        freemarkerConfig = config;
+        templateRegistry = registry;
+        messageEncoder = encoder;
+        outboundPipeline = pipeline;
+        senderNumberPool = pool;
+        inboundProcessor = inbound;
+        modelCache = cache;
+        eventFragmentCache = fragments;
+        conversationStore = conversations;
+        optOutRegistry = optOuts;
+        broadcastPool = broadcasts;
+        suppressedCounter = Counter.builder("sms.outbound.suppressed")
+                .description("Messages not sent because the recipient opted out")
+                .register(meterRegistry);
+        recentMessageSids = messageSids;
+        duplicateCounter = Counter.builder("sms.inbound.duplicates")
+                .description("Webhook retries dropped by MessageSid")
+                .register(meterRegistry);
+        Gauge.builder("sms.inbound.dedup.size", recentMessageSids, RecentKeySet::size)
+                .description("MessageSids remembered for deduplication")
+                .register(meterRegistry);
+        for (ResponseOption option : ResponseOption.values()) {
+            responseCounters.put(option, Counter.builder("sms.inbound.responses")
+                    .description("Inbound replies, by classification")
+                    .tag("option", option.name())
+                    .register(meterRegistry));
+        }
     }
 
     /**
@@ -90,13 +205,10 @@ public class MessageService {
         }
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("user_delete.ftl"),
-                            TemplateUtil.getModel(user, null, null, applicationProperties)));
+                    MessageTemplate.USER_DELETE,
+                    TemplateUtil.getModel(user, null, null, applicationProperties));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -113,13 +225,10 @@ public class MessageService {
         }
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("quiz_complete.ftl"),
-                            TemplateUtil.getModel(user, null, null, applicationProperties)));
+                    MessageTemplate.QUIZ_COMPLETE,
+                    TemplateUtil.getModel(user, null, null, applicationProperties));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -137,14 +246,12 @@ public class MessageService {
         final User user = getUser(message);
         final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_rsvp.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_RSVP,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
+                beginConversation(user, ConversationPrompt.EVENT_RSVP, event.getId());
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
@@ -163,14 +270,11 @@ public class MessageService {
         final User user = getUser(message);
         final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_upcoming.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_UPCOMING,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
@@ -189,14 +293,11 @@ public class MessageService {
         final User user = getUser(message);
         final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_start.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_START,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
@@ -215,14 +316,11 @@ public class MessageService {
         final User user = getUser(message);
         final Question question = getQuestion(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("question.ftl"),
-                            TemplateUtil.getModel(user, null, question, applicationProperties)));
+                    MessageTemplate.QUESTION,
+                    TemplateUtil.getModel(user, null, question, applicationProperties));
+            beginConversation(user, ConversationPrompt.QUESTION, question.getId());
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -240,14 +338,11 @@ public class MessageService {
         final Event event = getEvent(message);
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_register.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_REGISTER,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
@@ -266,14 +361,11 @@ public class MessageService {
         final Event event = getEvent(message);
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_unregister.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_UNREGISTER,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
@@ -289,15 +381,20 @@ public class MessageService {
         if (!applicationProperties.isEnabled()) {
             return;
         }
-        final User user = getUser(message);
+        sendUserSettingsVerified(getUser(message));
+    }
+
+    /**
+     * Sends the user settings verified message to a user.
+     *
+     * @param user User
+     */
+    private void sendUserSettingsVerified(final User user) {
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("user_settings_verified.ftl"),
-                            TemplateUtil.getModel(user, null, null, applicationProperties)));
+                    MessageTemplate.USER_SETTINGS_VERIFIED,
+                    TemplateUtil.getModel(user, null, null, applicationProperties));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -314,13 +411,11 @@ public class MessageService {
         }
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("user_verify_settings.ftl"),
-                            TemplateUtil.getModel(user, null, null, applicationProperties)));
+                    MessageTemplate.USER_VERIFY_SETTINGS,
+                    TemplateUtil.getModel(user, null, null, applicationProperties));
+            beginConversation(user, ConversationPrompt.VERIFY_SETTINGS, null);
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -342,16 +437,14 @@ public class MessageService {
         }
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-            Map<String, Object> model = TemplateUtil.getModel(user, null, null, applicationProperties);
-            model.put("response", response);
-            model.put("original_message", originalMessage);
+            final MessageModel model = TemplateUtil.getModel(user, null, null, applicationProperties);
+            model.setResponse(response);
+            model.setOriginalMessage(originalMessage);
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("resend_header.ftl"),
-                            model));
+                    MessageTemplate.RESEND_HEADER,
+                    model);
+            beginConversation(user, ConversationPrompt.VERIFY_SETTINGS, null);
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -368,15 +461,10 @@ public class MessageService {
         }
         final User user = getUser(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-            Map<String, Object> model = TemplateUtil.getModel(user, null, null, applicationProperties);
-            model.put("code", user.getCode());
             send(
-                    applicationProperties.getFromAddress(),
                     user.getSms(),
-                    FreeMarkerTemplateUtils.processTemplateIntoString(
-                            freemarkerConfig.getTemplate("password_reset.ftl"),
-                            model));
+                    MessageTemplate.PASSWORD_RESET,
+                    TemplateUtil.getModel(user, null, null, applicationProperties));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
@@ -394,20 +482,85 @@ public class MessageService {
         final User user = getUser(message);
         final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
                 send(
-                        applicationProperties.getFromAddress(),
                         user.getSms(),
-                        FreeMarkerTemplateUtils.processTemplateIntoString(
-                                freemarkerConfig.getTemplate("gs_event_last_min_registration.ftl"),
-                                TemplateUtil.getModel(user, event, null, applicationProperties)));
+                        MessageTemplate.GS_EVENT_LAST_MIN_REGISTRATION,
+                        TemplateUtil.getModel(user, eventFragmentCache.get(event), applicationProperties));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
         }
     }
 
+    /**
+     * Broadcasts an event message to many recipients.
+     *
+     * <p>The event portion of the model comes from the shared event fragment. Per-recipient rendering runs in
+     * parallel on the broadcast pool and feeds the outbound pipeline; the returned
+     * {@link Broadcast} reports progress and per-recipient outcomes as sends complete.</p>
+     *
+     * @param messageTemplate MessageTemplate
+     * @param event           Event
+     * @param recipients      users to notify
+     * @return Broadcast
+     */
+    public Broadcast broadcastEventMsg(
+            final MessageTemplate messageTemplate,
+            final Event event,
+            final List<User> recipients) {
+        final Broadcast broadcast = new Broadcast(messageTemplate, recipients.size());
+        if (!applicationProperties.isEnabled() || event.getEventType() != EventType.GROUNDSCHOOL) {
+            for (int i = 0; i < recipients.size(); i++) {
+                broadcast.recordSkipped(i, recipients.get(i).getSms());
+            }
+            return broadcast;
+        }
+        final EventFragment eventFragment = eventFragmentCache.get(event);
+        broadcastPool.execute(new BroadcastTask(
+                0,
+                recipients.size(),
+                index -> sendBroadcastMsg(broadcast, index, recipients.get(index), eventFragment)));
+        return broadcast;
+    }
+
+    /**
+     * Renders and queues one recipient's part of a broadcast.
+     *
+     * @param broadcast     Broadcast
+     * @param index         recipient index
+     * @param user          recipient
+     * @param eventFragment shared event fragment
+     */
+    private void sendBroadcastMsg(
+            final Broadcast broadcast,
+            final int index,
+            final User user,
+            final EventFragment eventFragment) {
+        final String to = user.getSms();
+        if (optOutRegistry.isOptedOut(PhoneNumbers.parse(to))) {
+            suppressedCounter.increment();
+            broadcast.recordSkipped(index, to);
+            return;
+        }
+        try {
+            final String body = render(
+                    broadcast.getMessageTemplate(),
+                    TemplateUtil.getModel(user, eventFragment, applicationProperties));
+            broadcast.recordQueued(index, to);
+            send(to, body, broadcast.getMessageTemplate().isCoalescible()).whenComplete((sid, e) -> {
+                if (e == null) {
+                    broadcast.recordSent(index, to, sid);
+                } else {
+                    broadcast.recordFailed(index, to, e.getMessage());
+                }
+            });
+        } catch (IOException | TemplateException | RuntimeException e) {
+            log.warn(e.getMessage());
+            broadcast.recordFailed(index, to, e.getMessage());
+        }
+    }
+
     /**
      * Sends a message to a user that an event has completed.
      *
@@ -417,7 +570,12 @@ public class MessageService {
     }
 
     /**
-     * Receives a message and returns response.
+     * Receives a message and returns response. Twilio's retries of a message already received are
+     * dropped; a message whose handling fails is forgotten again, so Twilio's retry of it is not.
+     * Opt-out and opt-in keywords update the OptOutRegistry before the webhook returns. YES only
+     * opts in a number that has opted out; from any other number it is counted as an unrecognised
+     * reply. Other valid replies (including opt-outs) are queued on the InboundProcessor, so the
+     * webhook returns before they are processed.
      *
      * @param message received
      * @return response
@@ -427,85 +585,198 @@ public class MessageService {
             return null;
         }
         String response = null;
-        final String msg = String.format("receiveMessage() message received was [%s]", message);
+        final String sid = messageSid(message);
+        if (sid != null && !recentMessageSids.add(sid)) {
+            duplicateCounter.increment();
+            return response;
+        }
+        try {
+            accept(message);
+        } catch (RuntimeException e) {
+            if (sid != null) {
+                recentMessageSids.remove(sid);
+            }
+            throw e;
+        }
+        return response;
+    }
+
+    /**
+     * Records the opt-out state and queues the reply of a message that is not a duplicate.
+     *
+     * @param message received
+     */
+    private void accept(final SMSMessage message) {
+        final String msg = String.format(
+                "receiveMessage() message received from [%s] was [%s]",
+                message.getFrom(),
+                message.getBody());
         log.info(msg);
+        final ParsedResponse parsedResponse;
         try {
-            ResponseValidator.validate(message.getBody());
+            parsedResponse = ResponseValidator.validate(message.getBody());
         } catch (InvalidPayloadException e) {
-            return response;
+            responseCounters.get(ResponseOption.UNKNOWN).increment();
+            return;
+        }
+        final long from = PhoneNumbers.parse(message.getFrom());
+        if (parsedResponse.isOptIn()) {
+            if (parsedResponse.isConditionalOptIn() && !optOutRegistry.isOptedOut(from)) {
+                responseCounters.get(ResponseOption.UNKNOWN).increment();
+                return;
+            }
+            optOutRegistry.optIn(from);
+            return;
+        }
+        if (parsedResponse.isOptOut()) {
+            optOutRegistry.optOut(from);
         }
+        responseCounters.get(parsedResponse.getOption()).increment();
 
-        processUserResponse(stripCountryCode(message.getFrom()), message.getBody(), NotificationType.SMS);
-        return response;
+        inboundProcessor.submit(new InboundResponse(from, parsedResponse));
+    }
+
+    /**
+     * MessageSid of a message, falling back to SmsMessageSid. Only the message SID is decoded.
+     *
+     * @param message received
+     * @return SID, or null if the message has none
+     */
+    private static String messageSid(final SMSMessage message) {
+        final String sid = message.getMessageSid();
+        return sid != null ? sid : message.getSmsMessageSid();
+    }
+
+    /**
+     * Processes a reply queued by receiveMessage.
+     *
+     * @param inboundResponse InboundResponse
+     */
+    public void processInbound(final InboundResponse inboundResponse) {
+        processUserResponse(inboundResponse.getFrom(), inboundResponse.getResponse(), NotificationType.SMS);
+    }
+
+    /**
+     * Renders a message and encodes it for sending.
+     *
+     * @param messageTemplate MessageTemplate
+     * @param model           template model
+     * @return body to send
+     * @throws IOException       when output cannot be written
+     * @throws TemplateException when the template fails to render
+     */
+    private String render(final MessageTemplate messageTemplate, final Object model)
+            throws IOException, TemplateException {
+        return messageEncoder.encode(messageTemplate, templateRegistry.render(messageTemplate, model)).getText();
     }
 
     /**
-     * Sends an SMS.
+     * Renders a message and queues it for sending.
+     *
+     * @param toAddress       to address
+     * @param messageTemplate MessageTemplate
+     * @param model           template model
+     * @return future completed with the provider message id, or failed with OptedOutException
+     * @throws IOException       when output cannot be written
+     * @throws TemplateException when the template fails to render
+     */
+    private CompletableFuture<String> send(
+            final String toAddress,
+            final MessageTemplate messageTemplate,
+            final Object model) throws IOException, TemplateException {
+        return send(toAddress, render(messageTemplate, model), messageTemplate.isCoalescible());
+    }
+
+    /**
+     * Queues an SMS on the outbound pipeline, from the recipient's sender number, unless the
+     * recipient opted out.
      *
-     * @param fromAddress from address
      * @param toAddress   to address
      * @param body        body
+     * @param coalescible whether the message may be held back and merged with others to the recipient
+     * @return future completed with the provider message id, or failed with OptedOutException
      */
-    private void send(
-            final String fromAddress,
+    private CompletableFuture<String> send(
             final String toAddress,
-            final String body) {
-        final String msg = String.format(
-                "Sending... fromAddress [%s]; toAddress [%s]; body [%s]",
-                fromAddress,
-                toAddress,
-                body);
-        log.info(msg);
-        Twilio.init(applicationProperties.getAccountSid(), applicationProperties.getAuthId());
-        com.twilio.rest.api.v2010.account.Message
-                .creator(new PhoneNumber(toAddress), new PhoneNumber(fromAddress), body).create();
+            final String body,
+            final boolean coalescible) {
+        if (optOutRegistry.isOptedOut(PhoneNumbers.parse(toAddress))) {
+            suppressedCounter.increment();
+            log.info(String.format("Not sending to [%s]: recipient opted out", toAddress));
+            return CompletableFuture.failedFuture(new OptedOutException(toAddress));
+        }
+        return outboundPipeline.submit(
+                new OutboundMessage(senderNumberPool.select(toAddress), toAddress, body, coalescible));
     }
 
     /**
      * Process user response.
      *
-     * @param message          received from user
-     * @param to               user
+     * @param to               user's phone number, as a PhoneNumbers key
+     * @param response         classified reply received from user
      * @param notificationType NotificationType
      */
     protected void processUserResponse(
-            final String to,
-            final String message,
+            final long to,
+            final ParsedResponse response,
             final NotificationType notificationType) {
-        // TODO
+        final Conversation conversation = conversationStore.get(to);
+        if (conversation == null) {
+            log.info(String.format(
+                    "No open conversation with [%s]; reply [%s] ignored", PhoneNumbers.format(to), response.getOption()));
+            return;
+        }
+        if (response.isOptOut()) {
+            conversationStore.complete(to, conversation);
+            return;
+        }
+        final ConversationPrompt prompt = conversation.getPrompt();
+        if (!prompt.accepts(response.getOption())) {
+            log.info(String.format(
+                    "Reply [%s] from [%s] does not answer %s", response.getOption(), PhoneNumbers.format(to), prompt));
+            return;
+        }
+        if (!conversationStore.complete(to, conversation)) {
+            return;
+        }
+        log.info(String.format("User [%s] answered %s [%s] with [%s]",
+                conversation.getUserId(), prompt, conversation.getSubjectId(), response.getOption()));
+        if (prompt == ConversationPrompt.VERIFY_SETTINGS && response.getOption() == ResponseOption.CONFIRM) {
+            final User user = modelCache.getUser(conversation.getUserId());
+            if (user != null) {
+                sendUserSettingsVerified(user);
+            }
+        }
     }
 
     /**
-     * Strips the country code from a phone number.
+     * Begins a conversation with a user after sending a prompt.
      *
-     * @param from number
-     * @return phone number minus country code
+     * @param user      User
+     * @param prompt    ConversationPrompt
+     * @param subjectId event or question ID, may be null
      */
-    protected static String stripCountryCode(final String from) {
-        if (from == null || from.length() == CommonConstants.TEN) {
-            return from;
-        }
-        String response = from;
-        Matcher matcher = TN_PATTERN.matcher(from);
-        if (matcher.find()) {
-            response = matcher.group(1);
-        }
-        return response;
+    private void beginConversation(final User user, final ConversationPrompt prompt, final Long subjectId) {
+        conversationStore.begin(
+                PhoneNumbers.parse(user.getSms()),
+                prompt,
+                user.getId() == null ? 0L : user.getId(),
+                subjectId == null ? 0L : subjectId);
     }
 
     private Event getEvent(final Message message) {
-        return null;
+        return modelCache.getEvent(message.getEventId());
     }
 
     private User getUser(final Message message) {
-        return null;
+        return modelCache.getUser(message.getUserId());
     }
 
     private Question getQuestion(final Message message) {
-        return null;
+        return modelCache.getQuestion(message.getQuestionId());
     }
 
     private Quiz getQuiz(final Message message) {
-        return null;
+        return modelCache.getQuiz(message.getQuizId());
     }
 }
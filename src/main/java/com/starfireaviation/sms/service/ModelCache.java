@@ -0,0 +1,229 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.User;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of {@link ModelLoader}.
+ *
+ * <p>Entries are bounded by count and evicted after a time to live. A read of an entry older than
+ * the refresh interval reloads it in the background while the cached value is still served, so
+ * hot events and questions never block on a reload. Lookups that find nothing are cached as
+ * well, for a shorter time. Concurrent misses for one key share a single load. Hit, miss, load
+ * and eviction counts are exported as Micrometer cache metrics.</p>
+ */
+@Slf4j
+public class ModelCache {
+
+    /**
+     * Users by ID.
+     */
+    private final AsyncLoadingCache<Long, Optional<User>> users;
+
+    /**
+     * Events by ID.
+     */
+    private final AsyncLoadingCache<Long, Optional<Event>> events;
+
+    /**
+     * Questions by ID.
+     */
+    private final AsyncLoadingCache<Long, Optional<Question>> questions;
+
+    /**
+     * Quizzes by ID.
+     */
+    private final AsyncLoadingCache<Long, Optional<Quiz>> quizzes;
+
+    /**
+     * ModelCache.
+     *
+     * @param settings ApplicationProperties.ModelCache
+     * @param loader   ModelLoader
+     * @param registry MeterRegistry
+     */
+    public ModelCache(final ApplicationProperties.ModelCache settings,
+                      final ModelLoader loader,
+                      final MeterRegistry registry) {
+        users = build(settings, "sms.users", loader::loadUser, registry);
+        events = build(settings, "sms.events", loader::loadEvent, registry);
+        questions = build(settings, "sms.questions", loader::loadQuestion, registry);
+        quizzes = build(settings, "sms.quizzes", loader::loadQuiz, registry);
+    }
+
+    /**
+     * Gets a user.
+     *
+     * @param userId user ID, may be null
+     * @return User, or null if not found
+     */
+    public User getUser(final Long userId) {
+        return get(users, userId);
+    }
+
+    /**
+     * Gets an event.
+     *
+     * @param eventId event ID, may be null
+     * @return Event, or null if not found
+     */
+    public Event getEvent(final Long eventId) {
+        return get(events, eventId);
+    }
+
+    /**
+     * Gets a question.
+     *
+     * @param questionId question ID, may be null
+     * @return Question, or null if not found
+     */
+    public Question getQuestion(final Long questionId) {
+        return get(questions, questionId);
+    }
+
+    /**
+     * Gets a quiz.
+     *
+     * @param quizId quiz ID, may be null
+     * @return Quiz, or null if not found
+     */
+    public Quiz getQuiz(final Long quizId) {
+        return get(quizzes, quizId);
+    }
+
+    /**
+     * Reads through a cache, waiting for the load on a miss.
+     *
+     * @param cache cache
+     * @param id    ID, may be null
+     * @param <T>   entity type
+     * @return entity, or null if not found or the load failed
+     */
+    private static <T> T get(final AsyncLoadingCache<Long, Optional<T>> cache, final Long id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return cache.get(id).join().orElse(null);
+        } catch (CompletionException e) {
+            log.warn(String.format("Unable to load [%s]: %s", id, e.getCause()));
+            return null;
+        }
+    }
+
+    /**
+     * Builds and instruments one cache.
+     *
+     * @param settings ApplicationProperties.ModelCache
+     * @param name     cache name
+     * @param load     loads an entity, returning null if not found
+     * @param registry MeterRegistry
+     * @param <T>      entity type
+     * @return cache
+     */
+    private static <T> AsyncLoadingCache<Long, Optional<T>> build(final ApplicationProperties.ModelCache settings,
+                                                                  final String name,
+                                                                  final Function<Long, T> load,
+                                                                  final MeterRegistry registry) {
+        final AsyncLoadingCache<Long, Optional<T>> cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(new PresenceExpiry<T>(settings))
+                .refreshAfterWrite(Duration.ofMillis(settings.getRefreshAfterWrite()))
+                .recordStats()
+                .buildAsync(id -> Optional.ofNullable(load.apply(id)));
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        return cache;
+    }
+
+    /**
+     * Expires found entities after expireAfterWrite and missing ones after negativeExpireAfterWrite.
+     *
+     * @param <T> entity type
+     */
+    private static final class PresenceExpiry<T> implements Expiry<Long, Optional<T>> {
+
+        /**
+         * Time to live of a found entity.
+         */
+        private final long presentNanos;
+
+        /**
+         * Time to live of a missing entity.
+         */
+        private final long absentNanos;
+
+        /**
+         * PresenceExpiry.
+         *
+         * @param settings ApplicationProperties.ModelCache
+         */
+        PresenceExpiry(final ApplicationProperties.ModelCache settings) {
+            presentNanos = TimeUnit.MILLISECONDS.toNanos(settings.getExpireAfterWrite());
+            absentNanos = TimeUnit.MILLISECONDS.toNanos(settings.getNegativeExpireAfterWrite());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long expireAfterCreate(final Long key, final Optional<T> value, final long currentTime) {
+            return value.isPresent() ? presentNanos : absentNanos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long expireAfterUpdate(final Long key,
+                                      final Optional<T> value,
+                                      final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long expireAfterRead(final Long key,
+                                    final Optional<T> value,
+                                    final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
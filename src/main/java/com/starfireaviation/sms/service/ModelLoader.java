@@ -0,0 +1,62 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.User;
+
+/**
+ * Loads the entities messages refer to. Lookups go through {@link ModelCache}.
+ */
+public interface ModelLoader {
+
+    /**
+     * Loads a user.
+     *
+     * @param userId user ID
+     * @return User, or null if not found
+     */
+    User loadUser(Long userId);
+
+    /**
+     * Loads an event.
+     *
+     * @param eventId event ID
+     * @return Event, or null if not found
+     */
+    Event loadEvent(Long eventId);
+
+    /**
+     * Loads a question.
+     *
+     * @param questionId question ID
+     * @return Question, or null if not found
+     */
+    Question loadQuestion(Long questionId);
+
+    /**
+     * Loads a quiz.
+     *
+     * @param quizId quiz ID
+     * @return Quiz, or null if not found
+     */
+    Quiz loadQuiz(Long quizId);
+
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ModelLoader used until a model service client is configured. Finds nothing.
+ */
+@Slf4j
+public class NoOpModelLoader implements ModelLoader {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public User loadUser(final Long userId) {
+        log.debug(String.format("No model loader configured; user [%s] not loaded", userId));
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Event loadEvent(final Long eventId) {
+        log.debug(String.format("No model loader configured; event [%s] not loaded", eventId));
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Question loadQuestion(final Long questionId) {
+        log.debug(String.format("No model loader configured; question [%s] not loaded", questionId));
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Quiz loadQuiz(final Long quizId) {
+        log.debug(String.format("No model loader configured; quiz [%s] not loaded", quizId));
+        return null;
+    }
+
+}
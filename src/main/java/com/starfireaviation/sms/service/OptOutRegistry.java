@@ -0,0 +1,385 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.util.BloomFilter;
+import com.starfireaviation.sms.util.LongHashSet;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Phone numbers that replied with an opt-out keyword (STOP) and have not opted back in (START).
+ *
+ * <p>Numbers are {@link PhoneNumbers} keys held in a {@link LongHashSet}. Every send is checked,
+ * so the check is screened by a {@link BloomFilter}: for the vast majority of numbers, which never
+ * opted out, the filter answers without taking a lock, and only possible matches consult the set
+ * under a read lock. Opt-ins leave their bits in the filter, which is rebuilt from the set once
+ * it has absorbed more insertions than it was sized for.</p>
+ *
+ * <p>When persistence is enabled (the default), every change is appended to a memory-mapped file
+ * and forced to disk before the change returns. The file is laid out as magic (int), version (int)
+ * and record count (long), followed by one long per change: the key for an opt-out, its negation
+ * for an opt-in. On open the records are replayed and the file is rewritten with just the current
+ * set; the same compaction runs whenever the file fills up.</p>
+ */
+@Slf4j
+public class OptOutRegistry {
+
+    /**
+     * File magic.
+     */
+    private static final int MAGIC = 0x534d534f;
+
+    /**
+     * File format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Header size: magic, version and record count.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Offset of the record count.
+     */
+    private static final int COUNT_OFFSET = 8;
+
+    /**
+     * Fewest records a file is sized for.
+     */
+    private static final int MIN_RECORDS = 1024;
+
+    /**
+     * Opt-out settings.
+     */
+    private final ApplicationProperties.OptOut settings;
+
+    /**
+     * Opted-out numbers.
+     */
+    private final LongHashSet optedOut = new LongHashSet();
+
+    /**
+     * Guards optedOut and the file.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Opt-outs recorded.
+     */
+    private final Counter optOutCounter;
+
+    /**
+     * Opt-ins recorded.
+     */
+    private final Counter optInCounter;
+
+    /**
+     * Screens lookups; replaced when rebuilt.
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * Insertions the current filter is sized for.
+     */
+    private long filterCapacity;
+
+    /**
+     * Insertions into the current filter.
+     */
+    private long filterInsertions;
+
+    /**
+     * Mapped file, null when not persistent.
+     */
+    private MappedByteBuffer file;
+
+    /**
+     * Records the mapped file can hold.
+     */
+    private long fileCapacity;
+
+    /**
+     * Records in the mapped file.
+     */
+    private long fileRecords;
+
+    /**
+     * OptOutRegistry.
+     *
+     * @param optOutSettings ApplicationProperties.OptOut
+     * @param registry       MeterRegistry
+     */
+    public OptOutRegistry(final ApplicationProperties.OptOut optOutSettings, final MeterRegistry registry) {
+        settings = optOutSettings;
+        rebuildFilter();
+        optOutCounter = Counter.builder("sms.optout.changes")
+                .description("Opt-out registry changes")
+                .tag("action", "opt-out")
+                .register(registry);
+        optInCounter = Counter.builder("sms.optout.changes")
+                .description("Opt-out registry changes")
+                .tag("action", "opt-in")
+                .register(registry);
+        Gauge.builder("sms.optout.size", this, OptOutRegistry::size)
+                .description("Numbers currently opted out")
+                .register(registry);
+    }
+
+    /**
+     * Loads and compacts the file, if persistence is enabled.
+     *
+     * @throws IOException when the file cannot be read or written
+     */
+    public void open() throws IOException {
+        if (!settings.isPersistent()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            final Path path = path();
+            if (Files.exists(path)) {
+                load(path);
+            }
+            compact();
+            log.info(String.format("Loaded %d opted-out numbers from [%s]", optedOut.size(), path));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces and releases the file.
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (file != null) {
+                file.force();
+                file = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether a number has opted out.
+     *
+     * @param phone phone number key
+     * @return true if messages to the number must not be sent
+     */
+    public boolean isOptedOut(final long phone) {
+        if (phone == PhoneNumbers.INVALID || !filter.mightContain(phone)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return optedOut.contains(phone);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records an opt-out.
+     *
+     * @param phone phone number key
+     * @return true if the number was not already opted out
+     */
+    public boolean optOut(final long phone) {
+        if (phone == PhoneNumbers.INVALID) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!optedOut.add(phone)) {
+                return false;
+            }
+            if (++filterInsertions > filterCapacity) {
+                rebuildFilter();
+            } else {
+                filter.put(phone);
+            }
+            append(phone);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        optOutCounter.increment();
+        return true;
+    }
+
+    /**
+     * Records an opt-in, lifting an earlier opt-out.
+     *
+     * @param phone phone number key
+     * @return true if the number was opted out
+     */
+    public boolean optIn(final long phone) {
+        if (phone == PhoneNumbers.INVALID) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!optedOut.remove(phone)) {
+                return false;
+            }
+            append(-phone);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        optInCounter.increment();
+        return true;
+    }
+
+    /**
+     * Number of opted-out numbers.
+     *
+     * @return size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return optedOut.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a change to the file, compacting it first if it is full. Caller holds the write lock.
+     *
+     * @param record key, negated for an opt-in
+     */
+    private void append(final long record) {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (fileRecords == fileCapacity) {
+                compact();
+                return;
+            }
+            file.putLong(HEADER_SIZE + (int) (fileRecords * Long.BYTES), record);
+            fileRecords++;
+            file.putLong(COUNT_OFFSET, fileRecords);
+            file.force();
+        } catch (IOException e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * Replays the records of a file. Caller holds the write lock.
+     *
+     * @param path file
+     * @throws IOException when the file cannot be read or is not an opt-out file
+     */
+    private void load(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(String.format("Unrecognized opt-out file [%s]", path));
+            }
+            final long records = Math.min(buffer.getLong(COUNT_OFFSET), (buffer.limit() - HEADER_SIZE) / Long.BYTES);
+            for (int i = 0; i < records; i++) {
+                final long record = buffer.getLong(HEADER_SIZE + i * Long.BYTES);
+                if (record > 0) {
+                    optedOut.add(record);
+                } else {
+                    optedOut.remove(-record);
+                }
+            }
+        }
+        rebuildFilter();
+    }
+
+    /**
+     * Rewrites the file with the current set, sized with room to grow, and maps it for appends.
+     * The new file is forced and then renamed over the old one. Caller holds the write lock.
+     *
+     * @throws IOException when the file cannot be written
+     */
+    private void compact() throws IOException {
+        final Path path = path();
+        final Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = directory.resolve(path.getFileName() + ".tmp");
+        final long capacity = Math.max(MIN_RECORDS, Math.max(settings.getExpectedOptOuts(), 2L * optedOut.size()));
+        final long[] records = new long[optedOut.size()];
+        final int[] count = new int[1];
+        optedOut.forEach(phone -> records[count[0]++] = phone);
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * Long.BYTES);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(COUNT_OFFSET, records.length);
+            for (int i = 0; i < records.length; i++) {
+                buffer.putLong(HEADER_SIZE + i * Long.BYTES, records[i]);
+            }
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            file = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        fileCapacity = capacity;
+        fileRecords = records.length;
+    }
+
+    /**
+     * Rebuilds the filter from the set, sized with room to grow. Caller holds the write lock,
+     * or is the constructor.
+     */
+    private void rebuildFilter() {
+        final long capacity = Math.max(settings.getExpectedOptOuts(), 2L * optedOut.size());
+        final BloomFilter rebuilt = new BloomFilter(capacity, settings.getFalsePositiveRate());
+        optedOut.forEach(rebuilt::put);
+        filterCapacity = capacity;
+        filterInsertions = optedOut.size();
+        filter = rebuilt;
+    }
+
+    /**
+     * Opt-out file.
+     *
+     * @return path
+     */
+    private Path path() {
+        return Paths.get(settings.getFile());
+    }
+
+}
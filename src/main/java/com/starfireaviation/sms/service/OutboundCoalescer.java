@@ -0,0 +1,224 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.model.OutboundMessage;
+import com.starfireaviation.sms.util.LongHashMap;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import com.starfireaviation.sms.util.SmsEncoding;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Holds outbound messages for a short window and merges those to the same recipient.
+ *
+ * <p>The first coalescible message to a number opens a window; messages to that number arriving
+ * before it closes are appended, separated by a blank line, as long as the combined body stays
+ * within the segment budget. A message that does not fit, or one that may not be held back,
+ * releases what is pending for the number first, so messages to one recipient keep their order.
+ * Not thread-safe: each outbound consumer owns one, and all messages to a number go through the
+ * same consumer.</p>
+ */
+public class OutboundCoalescer {
+
+    /**
+     * Separator between merged bodies.
+     */
+    private static final String SEPARATOR = "\n\n";
+
+    /**
+     * How long the first message to a number is held.
+     */
+    private final long windowNanos;
+
+    /**
+     * Maximum segments of a merged message.
+     */
+    private final int maxSegments;
+
+    /**
+     * Messages merged into another send.
+     */
+    private final Counter coalescedCounter;
+
+    /**
+     * Pending messages by recipient.
+     */
+    private final LongHashMap<Pending> pending = new LongHashMap<>();
+
+    /**
+     * Earliest window end among pending messages (System.nanoTime() based).
+     */
+    private long nextDeadline;
+
+    /**
+     * OutboundCoalescer.
+     *
+     * @param windowMillis  how long the first message to a number is held
+     * @param segmentBudget maximum segments of a merged message
+     * @param coalesced     counts messages merged into another send
+     */
+    public OutboundCoalescer(final long windowMillis, final int segmentBudget, final Counter coalesced) {
+        windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        maxSegments = segmentBudget;
+        coalescedCounter = coalesced;
+    }
+
+    /**
+     * Takes a message, releasing it and anything it cannot be merged with to the sink.
+     *
+     * @param message OutboundMessage
+     * @param now     System.nanoTime()
+     * @param sink    receives messages ready to send
+     */
+    public void offer(final OutboundMessage message, final long now, final Consumer<OutboundMessage> sink) {
+        final long key = PhoneNumbers.parse(message.getTo());
+        final Pending held = pending.get(key);
+        if (held != null) {
+            if (message.isCoalescible() && held.accepts(message)) {
+                final String body = held.body + SEPARATOR + message.getBody();
+                if (SmsEncoding.encode(body).getSegments() <= maxSegments) {
+                    held.messages.add(message);
+                    held.body = body;
+                    return;
+                }
+            }
+            pending.remove(key);
+            release(held, sink);
+        }
+        if (!message.isCoalescible() || SmsEncoding.encode(message.getBody()).getSegments() > maxSegments) {
+            sink.accept(message);
+            return;
+        }
+        final long deadline = now + windowNanos;
+        if (pending.isEmpty() || deadline - nextDeadline < 0) {
+            nextDeadline = deadline;
+        }
+        pending.put(key, new Pending(message, deadline));
+    }
+
+    /**
+     * Releases messages whose window has closed.
+     *
+     * @param now  System.nanoTime()
+     * @param sink receives messages ready to send
+     */
+    public void flushDue(final long now, final Consumer<OutboundMessage> sink) {
+        if (pending.isEmpty() || now - nextDeadline < 0) {
+            return;
+        }
+        nextDeadline = now + windowNanos;
+        pending.removeIf((key, held) -> {
+            if (now - held.deadline >= 0) {
+                release(held, sink);
+                return true;
+            }
+            if (held.deadline - nextDeadline < 0) {
+                nextDeadline = held.deadline;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Releases all pending messages.
+     *
+     * @param sink receives messages ready to send
+     */
+    public void flushAll(final Consumer<OutboundMessage> sink) {
+        pending.removeIf((key, held) -> {
+            release(held, sink);
+            return true;
+        });
+    }
+
+    /**
+     * Number of recipients with messages held.
+     *
+     * @return count
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Sends what is held for a recipient, merged if there is more than one message.
+     *
+     * @param held Pending
+     * @param sink receives the message
+     */
+    private void release(final Pending held, final Consumer<OutboundMessage> sink) {
+        if (held.messages.size() == 1) {
+            sink.accept(held.messages.get(0));
+            return;
+        }
+        coalescedCounter.increment(held.messages.size() - 1);
+        sink.accept(new OutboundMessage(held.messages, held.body));
+    }
+
+    /**
+     * Messages held for one recipient.
+     */
+    private static final class Pending {
+
+        /**
+         * Messages, in submission order.
+         */
+        private final List<OutboundMessage> messages = new ArrayList<>(2);
+
+        /**
+         * When the window closes (System.nanoTime() based).
+         */
+        private final long deadline;
+
+        /**
+         * Combined body.
+         */
+        private String body;
+
+        /**
+         * Pending.
+         *
+         * @param first    first message
+         * @param closesAt when the window closes
+         */
+        Pending(final OutboundMessage first, final long closesAt) {
+            messages.add(first);
+            deadline = closesAt;
+            body = first.getBody();
+        }
+
+        /**
+         * Whether a message goes to the same recipient from the same sender number.
+         *
+         * @param message OutboundMessage
+         * @return true if it may be merged
+         */
+        boolean accepts(final OutboundMessage message) {
+            final OutboundMessage first = messages.get(0);
+            return first.getTo().equals(message.getTo())
+                    && Objects.equals(first.getFrom(), message.getFrom());
+        }
+
+    }
+
+}
@@ -0,0 +1,638 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.OutboundMessage;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import com.starfireaviation.sms.util.RingBuffer;
+import com.starfireaviation.sms.util.StripedExecutor;
+import com.starfireaviation.sms.util.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous outbound send pipeline.
+ *
+ * <p>The queue is striped: each consumer thread owns a bounded lock-free ring buffer, and a message
+ * goes to the stripe its recipient hashes to (see {@link StripedExecutor#stripe(long, int)}).
+ * Callers enqueue and return immediately; each consumer drains its stripe in batches and hands each
+ * message to the {@link MessageSender}, so messages to one recipient are sent in submission order.
+ * When a stripe is full the caller waits for room, so a burst slows callers down rather than
+ * losing or reordering messages. When the pipeline is not running the message is sent on the
+ * caller's thread.</p>
+ *
+ * <p>With virtual threads enabled (JDK 21+), consumers hand each message to its own virtual thread
+ * instead of sending it themselves, so thousands of blocking Twilio calls can be in flight without
+ * a platform thread each. Sends to one recipient may then overlap and complete out of order. A
+ * semaphore caps the sends in flight; once it is exhausted consumers wait, the stripes fill up, and
+ * callers wait as above.</p>
+ *
+ * <p>When the {@link OutboxJournal} is enabled, submit returns only once the message is durable,
+ * and the message is marked done once Twilio accepts it or rejects it permanently. Messages left
+ * in the journal by a previous run are queued again on start.</p>
+ *
+ * <p>A send that fails with a retryable error is queued again after a backoff that doubles with
+ * each attempt, up to the configured number of retries; later messages to the same recipient may
+ * overtake it. Once the retries run out, or the pipeline stops, its future fails, and the message
+ * stays in the journal to be sent again after a restart. Retries are counted as
+ * sms.outbound.retries.</p>
+ *
+ * <p>With a coalescing window configured, each consumer holds messages for up to that long and
+ * merges those to the same recipient into one send while they fit the segment budget (see
+ * {@link OutboundCoalescer}). Messages that are not coalescible, such as password resets, are
+ * never held. Merged messages are counted as sms.outbound.coalesced.</p>
+ *
+ * <p>A send the provider rejects because the recipient opted out with it records the opt-out in
+ * the {@link OptOutRegistry}, so later messages to that number are not attempted. Only failures
+ * the {@link MessageSender} attributes to the sender number count against its health in the
+ * {@link SenderNumberPool}; a bad or unsubscribed recipient just fails its own message.</p>
+ *
+ * <p>Queue depth and capacity are exposed as gauges, along with the depth of each stripe as
+ * sms.outbound.stripe.depth, and the time each message spent between submission and dispatch as
+ * the sms.outbound.queue.wait timer.</p>
+ */
+@Slf4j
+public class OutboundPipeline {
+
+    /**
+     * Number of empty polls spent spinning before a consumer starts parking.
+     */
+    private static final int SPIN_LIMIT = 100;
+
+    /**
+     * Shortest park of an idle consumer.
+     */
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    /**
+     * Longest park of an idle consumer.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Number of doublings from MIN_PARK_NANOS after which MAX_PARK_NANOS applies.
+     */
+    private static final int MAX_BACKOFF_SHIFT = 7;
+
+    /**
+     * How long shutdown waits for each consumer to finish draining.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Number of doublings of the retry backoff after which it stops growing.
+     */
+    private static final int MAX_RETRY_SHIFT = 10;
+
+    /**
+     * Outbound queue stripes, one per consumer.
+     */
+    private final List<RingBuffer<OutboundMessage>> stripes = new ArrayList<>();
+
+    /**
+     * MessageSender.
+     */
+    private final MessageSender messageSender;
+
+    /**
+     * SenderRateLimiter.
+     */
+    private final SenderRateLimiter rateLimiter;
+
+    /**
+     * SenderNumberPool.
+     */
+    private final SenderNumberPool senderNumberPool;
+
+    /**
+     * OutboxJournal.
+     */
+    private final OutboxJournal outbox;
+
+    /**
+     * OptOutRegistry.
+     */
+    private final OptOutRegistry optOutRegistry;
+
+    /**
+     * Number of consumer threads.
+     */
+    private final int consumerCount;
+
+    /**
+     * Maximum messages drained per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Time from submission to dispatch.
+     */
+    private final Timer queueWaitTimer;
+
+    /**
+     * Coalescing window in milliseconds; 0 when disabled.
+     */
+    private final long coalesceWindow;
+
+    /**
+     * Maximum segments of a merged message.
+     */
+    private final int coalesceMaxSegments;
+
+    /**
+     * Messages merged into another send.
+     */
+    private final Counter coalescedCounter;
+
+    /**
+     * Retries of a send that failed with a retryable error.
+     */
+    private final int retryAttempts;
+
+    /**
+     * Milliseconds before the first retry.
+     */
+    private final long retryBackoff;
+
+    /**
+     * Sends queued again after a retryable failure.
+     */
+    private final Counter retryCounter;
+
+    /**
+     * Retries waiting for their backoff to elapse.
+     */
+    private final Set<Retry> pendingRetries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Schedules retries, null when the pipeline is not running.
+     */
+    private volatile ScheduledExecutorService retryScheduler;
+
+    /**
+     * Whether sends should run on virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * Maximum sends in flight on virtual threads.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Permits for sends in flight on virtual threads.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Virtual thread per send executor, null when sending on the consumer threads.
+     */
+    private volatile ExecutorService sendExecutor;
+
+    /**
+     * Consumer threads.
+     */
+    private final List<Thread> consumers = new ArrayList<>();
+
+    /**
+     * Running flag.
+     */
+    private volatile boolean running;
+
+    /**
+     * OutboundPipeline.
+     *
+     * @param settings ApplicationProperties.Outbound
+     * @param sender   MessageSender
+     * @param limiter  SenderRateLimiter
+     * @param pool     SenderNumberPool
+     * @param journal  OutboxJournal
+     * @param optOuts  OptOutRegistry
+     * @param registry MeterRegistry
+     */
+    public OutboundPipeline(final ApplicationProperties.Outbound settings,
+                            final MessageSender sender,
+                            final SenderRateLimiter limiter,
+                            final SenderNumberPool pool,
+                            final OutboxJournal journal,
+                            final OptOutRegistry optOuts,
+                            final MeterRegistry registry) {
+        messageSender = sender;
+        rateLimiter = limiter;
+        senderNumberPool = pool;
+        outbox = journal;
+        optOutRegistry = optOuts;
+        consumerCount = Math.max(1, settings.getConsumers());
+        for (int i = 0; i < consumerCount; i++) {
+            stripes.add(new RingBuffer<>(Math.max(1, settings.getQueueCapacity() / consumerCount)));
+        }
+        batchSize = Math.max(1, settings.getBatchSize());
+        virtualThreads = settings.isVirtualThreads();
+        maxInFlight = Math.max(1, settings.getMaxInFlight());
+        inFlight = new Semaphore(maxInFlight);
+        coalesceWindow = Math.max(0L, settings.getCoalesceWindow());
+        coalesceMaxSegments = Math.max(1, settings.getCoalesceMaxSegments());
+        coalescedCounter = Counter.builder("sms.outbound.coalesced")
+                .description("Messages merged into another send to the same recipient")
+                .register(registry);
+        retryAttempts = Math.max(0, settings.getRetryAttempts());
+        retryBackoff = Math.max(1L, settings.getRetryBackoff());
+        retryCounter = Counter.builder("sms.outbound.retries")
+                .description("Sends queued again after a retryable failure")
+                .register(registry);
+        Gauge.builder("sms.outbound.inflight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Sends in flight on virtual threads")
+                .register(registry);
+        Gauge.builder("sms.outbound.queue.depth", this, OutboundPipeline::getQueueDepth)
+                .description("Messages waiting in the outbound queue")
+                .register(registry);
+        Gauge.builder("sms.outbound.queue.capacity", stripes,
+                        buffers -> buffers.stream().mapToInt(RingBuffer::capacity).sum())
+                .description("Capacity of the outbound queue")
+                .register(registry);
+        for (int i = 0; i < consumerCount; i++) {
+            Gauge.builder("sms.outbound.stripe.depth", stripes.get(i), RingBuffer::size)
+                    .description("Messages waiting in the outbound queue, by stripe")
+                    .tag("stripe", String.valueOf(i))
+                    .register(registry);
+        }
+        queueWaitTimer = Timer.builder("sms.outbound.queue.wait")
+                .description("Time from submission to dispatch")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Starts the consumer threads.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (virtualThreads) {
+            sendExecutor = VirtualThreads.newExecutor("sms-send-");
+            if (sendExecutor == null) {
+                log.warn("Virtual threads are not supported by this runtime; sending on platform threads");
+            }
+        }
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "sms-outbound-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < consumerCount; i++) {
+            final RingBuffer<OutboundMessage> stripe = stripes.get(i);
+            final Thread consumer = new Thread(() -> consume(stripe), "sms-outbound-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+        final List<OutboundMessage> recovered = outbox.recover();
+        if (!recovered.isEmpty()) {
+            log.info(String.format("Resending %d messages recovered from the outbox journal", recovered.size()));
+            recovered.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Stops accepting work into the queue and waits for the consumers to drain what is left.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        final ScheduledExecutorService scheduler = retryScheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            retryScheduler = null;
+            for (Retry retry : pendingRetries) {
+                if (pendingRetries.remove(retry)) {
+                    retry.message.getCompletion().completeExceptionally(retry.failure);
+                }
+            }
+        }
+        for (Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        consumers.clear();
+        for (RingBuffer<OutboundMessage> stripe : stripes) {
+            OutboundMessage message = stripe.poll();
+            while (message != null) {
+                execute(message);
+                message = stripe.poll();
+            }
+        }
+        final ExecutorService executor = sendExecutor;
+        if (executor != null) {
+            try {
+                if (!inFlight.tryAcquire(maxInFlight, SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Outbound pipeline stopped with sends still in flight");
+                } else {
+                    inFlight.release(maxInFlight);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor.shutdown();
+            sendExecutor = null;
+        }
+    }
+
+    /**
+     * Submits a message for sending.
+     *
+     * @param message OutboundMessage
+     * @return future completed with the provider message id
+     */
+    public CompletableFuture<String> submit(final OutboundMessage message) {
+        outbox.append(message);
+        enqueue(message);
+        return message.getCompletion();
+    }
+
+    /**
+     * Queues a message on its recipient's stripe, waiting while the stripe is full, or sends it on
+     * the calling thread if the pipeline is stopped. If the pipeline stops while the message is
+     * being queued, shutdown may already have drained the stripe, so whatever is left on it is sent
+     * on the calling thread.
+     *
+     * @param message OutboundMessage
+     */
+    private void enqueue(final OutboundMessage message) {
+        final RingBuffer<OutboundMessage> stripe =
+                stripes.get(StripedExecutor.stripe(PhoneNumbers.parse(message.getTo()), consumerCount));
+        int idle = 0;
+        while (running) {
+            if (offer(stripe, message)) {
+                if (!running) {
+                    OutboundMessage stranded = stripe.poll();
+                    while (stranded != null) {
+                        dispatch(stranded);
+                        stranded = stripe.poll();
+                    }
+                }
+                return;
+            }
+            idle = idle(idle);
+        }
+        dispatch(message);
+    }
+
+    /**
+     * Offers a message to a stripe. Package-private so tests can stop the pipeline between the
+     * running check and the offer.
+     *
+     * @param stripe  RingBuffer
+     * @param message OutboundMessage
+     * @return false if the stripe is full
+     */
+    boolean offer(final RingBuffer<OutboundMessage> stripe, final OutboundMessage message) {
+        return stripe.offer(message);
+    }
+
+    /**
+     * Current queue depth.
+     *
+     * @return number of queued messages
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (RingBuffer<OutboundMessage> stripe : stripes) {
+            depth += stripe.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Consumer loop.
+     *
+     * @param queue stripe owned by this consumer
+     */
+    private void consume(final RingBuffer<OutboundMessage> queue) {
+        final List<OutboundMessage> batch = new ArrayList<>(batchSize);
+        final Consumer<OutboundMessage> sink = this::execute;
+        final OutboundCoalescer coalescer = coalesceWindow > 0
+                ? new OutboundCoalescer(coalesceWindow, coalesceMaxSegments, coalescedCounter)
+                : null;
+        int idle = 0;
+        while (running || !queue.isEmpty()) {
+            if (coalescer != null) {
+                coalescer.flushDue(System.nanoTime(), sink);
+            }
+            if (queue.drainTo(batch, batchSize) == 0) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            final long now = System.nanoTime();
+            for (OutboundMessage message : batch) {
+                if (coalescer != null) {
+                    coalescer.offer(message, now, sink);
+                } else {
+                    execute(message);
+                }
+            }
+            batch.clear();
+        }
+        if (coalescer != null) {
+            coalescer.flushAll(sink);
+        }
+    }
+
+    /**
+     * Backs off an idle consumer: spin first, then park for exponentially longer periods.
+     *
+     * @param idle number of consecutive empty polls
+     * @return updated idle count
+     */
+    private static int idle(final int idle) {
+        if (idle < SPIN_LIMIT) {
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        final int shift = Math.min(idle - SPIN_LIMIT, MAX_BACKOFF_SHIFT);
+        LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << shift));
+        return SPIN_LIMIT + shift + 1;
+    }
+
+    /**
+     * Sends a message on a virtual thread, once a permit is available, or on the current thread
+     * when virtual threads are not in use.
+     *
+     * @param message OutboundMessage
+     */
+    private void execute(final OutboundMessage message) {
+        final ExecutorService executor = sendExecutor;
+        if (executor == null) {
+            dispatch(message);
+            return;
+        }
+        inFlight.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    dispatch(message);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            dispatch(message);
+        }
+    }
+
+    /**
+     * Waits for the sender number's rate limit, sends a single message and completes its future.
+     *
+     * @param message OutboundMessage
+     */
+    private void dispatch(final OutboundMessage message) {
+        if (message.getAttempts() == 0) {
+            queueWaitTimer.record(System.nanoTime() - message.getCreatedAt(), TimeUnit.NANOSECONDS);
+        }
+        rateLimiter.acquire(message.getFrom());
+        final String msg = String.format(
+                "Sending... fromAddress [%s]; toAddress [%s]; body [%s]",
+                message.getFrom(),
+                message.getTo(),
+                message.getBody());
+        log.info(msg);
+        try {
+            final String sid = messageSender.send(message);
+            senderNumberPool.recordResult(message.getFrom(), true);
+            markDone(message);
+            message.getCompletion().complete(sid);
+        } catch (RuntimeException e) {
+            log.warn(e.getMessage());
+            if (messageSender.isSenderFailure(e)) {
+                senderNumberPool.recordResult(message.getFrom(), false);
+            }
+            if (messageSender.isOptedOut(e)) {
+                optOutRegistry.optOut(PhoneNumbers.parse(message.getTo()));
+            }
+            if (!messageSender.isRetryable(e)) {
+                markDone(message);
+            } else if (scheduleRetry(message, e)) {
+                return;
+            }
+            message.getCompletion().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Queues a message again once its backoff has elapsed, unless it is out of retries or the
+     * pipeline is stopping.
+     *
+     * @param message OutboundMessage
+     * @param failure retryable failure
+     * @return true if a retry was scheduled
+     */
+    private boolean scheduleRetry(final OutboundMessage message, final RuntimeException failure) {
+        final int attempt = message.recordFailedAttempt();
+        final ScheduledExecutorService scheduler = retryScheduler;
+        if (attempt > retryAttempts || scheduler == null || !running) {
+            return false;
+        }
+        final Retry retry = new Retry(message, failure);
+        pendingRetries.add(retry);
+        try {
+            scheduler.schedule(retry, retryBackoff << Math.min(attempt - 1, MAX_RETRY_SHIFT), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.remove(retry);
+            return false;
+        }
+        retryCounter.increment();
+        return true;
+    }
+
+    /**
+     * Marks a message, and any messages merged into it, done in the outbox journal.
+     *
+     * @param message OutboundMessage
+     */
+    private void markDone(final OutboundMessage message) {
+        outbox.markDone(message);
+        for (OutboundMessage part : message.getParts()) {
+            markDone(part);
+        }
+    }
+
+    /**
+     * Queues a failed message again.
+     */
+    private final class Retry implements Runnable {
+
+        /**
+         * OutboundMessage.
+         */
+        private final OutboundMessage message;
+
+        /**
+         * Failure of the last attempt, used if the retry is abandoned.
+         */
+        private final RuntimeException failure;
+
+        /**
+         * Retry.
+         *
+         * @param retried   OutboundMessage
+         * @param exception failure of the last attempt
+         */
+        private Retry(final OutboundMessage retried, final RuntimeException exception) {
+            message = retried;
+            failure = exception;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            if (pendingRetries.remove(this)) {
+                enqueue(message);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,639 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.OutboundMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of outbound messages, so messages that were accepted but not yet delivered
+ * survive a restart.
+ *
+ * <p>The journal is a sequence of fixed-size memory-mapped segment files. Appending a message
+ * copies it into the current segment under a short lock, then waits until the segment has been
+ * forced to disk. Forcing is a group commit: whichever caller takes the flush lock first forces
+ * everything appended so far, and the callers queued behind it usually find their record already
+ * durable. Once Twilio accepts a message (or rejects it permanently) its record is marked done in
+ * place with a single byte write, which is not forced: after a crash a message may be sent twice,
+ * never zero times.</p>
+ *
+ * <p>Each record is laid out as length (int), CRC32 of the payload (int), status (byte), followed
+ * by the from, to and body fields as length-prefixed UTF-8 and a flags byte (bit 0: coalescible).
+ * Records written before the flags byte was added are read as not coalescible. A zero length or a CRC mismatch marks
+ * the end of a segment, so a torn write at the tail is ignored. On startup the pending records of
+ * all existing segments are copied into a fresh segment and the old segments are deleted; during
+ * operation a sealed segment is deleted as soon as all of its records are done. A record that
+ * is still failing with a retryable error once the pipeline's retries run out therefore stays in
+ * the journal until the next restart.</p>
+ */
+@Slf4j
+public class OutboxJournal {
+
+    /**
+     * Segment file name prefix.
+     */
+    private static final String PREFIX = "outbox-";
+
+    /**
+     * Segment file name suffix.
+     */
+    private static final String SUFFIX = ".log";
+
+    /**
+     * Record header size: length, CRC32 and status.
+     */
+    private static final int HEADER_SIZE = 9;
+
+    /**
+     * Offset of the status byte within a record.
+     */
+    private static final int STATUS_OFFSET = 8;
+
+    /**
+     * Status of a record that has not been delivered.
+     */
+    private static final byte PENDING = 1;
+
+    /**
+     * Status of a record that needs no further delivery attempts.
+     */
+    private static final byte DONE = 2;
+
+    /**
+     * Length written for a null field.
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Flag bit of a coalescible message.
+     */
+    private static final byte COALESCIBLE = 1;
+
+    /**
+     * Whether the journal is in use.
+     */
+    private final boolean enabled;
+
+    /**
+     * Directory holding the segments.
+     */
+    private final Path directory;
+
+    /**
+     * Size of each segment.
+     */
+    private final int segmentSize;
+
+    /**
+     * Open segments by sequence number.
+     */
+    private final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes appends.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * Serializes forces; held while the current segment is replaced.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Time spent forcing segments to disk.
+     */
+    private final Timer forceTimer;
+
+    /**
+     * Messages found pending at startup, handed out once by recover().
+     */
+    private final List<OutboundMessage> recovered = new ArrayList<>();
+
+    /**
+     * Segment files that existed at startup.
+     */
+    private final List<Path> recoveredFiles = new ArrayList<>();
+
+    /**
+     * Segment being appended to.
+     */
+    private volatile Segment current;
+
+    /**
+     * Journal position up to which records have been appended.
+     */
+    private volatile long written;
+
+    /**
+     * Journal position up to which records are durable.
+     */
+    private volatile long flushed;
+
+    /**
+     * OutboxJournal.
+     *
+     * @param settings ApplicationProperties.Outbox
+     * @param registry MeterRegistry
+     */
+    public OutboxJournal(final ApplicationProperties.Outbox settings, final MeterRegistry registry) {
+        enabled = settings.isEnabled();
+        directory = Paths.get(settings.getDirectory());
+        segmentSize = settings.getSegmentSize();
+        forceTimer = Timer.builder("sms.outbox.force")
+                .description("Time spent forcing the outbox journal to disk")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("sms.outbox.pending", segments, OutboxJournal::countPending)
+                .description("Journaled messages not yet delivered")
+                .register(registry);
+    }
+
+    /**
+     * Reads the existing segments and starts a new one.
+     *
+     * @throws IOException when the journal directory cannot be read or written
+     */
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        long lastSequence = -1;
+        for (Path file : files) {
+            lastSequence = Math.max(lastSequence, sequenceOf(file));
+            readPending(file, recovered);
+            recoveredFiles.add(file);
+        }
+        current = openSegment(lastSequence + 1);
+        written = position(current.sequence, 0);
+        flushed = written;
+        log.info(String.format("Opened outbox journal in [%s] with %d pending messages",
+                directory.toAbsolutePath(), recovered.size()));
+    }
+
+    /**
+     * Moves the messages that were pending at startup into the current segment, deletes the old
+     * segments and returns the messages so they can be sent. Only the first call returns messages.
+     *
+     * @return pending messages
+     */
+    public List<OutboundMessage> recover() {
+        if (!enabled || (recovered.isEmpty() && recoveredFiles.isEmpty())) {
+            return Collections.emptyList();
+        }
+        long end = written;
+        for (OutboundMessage message : recovered) {
+            end = Math.max(end, write(message));
+        }
+        awaitDurable(end);
+        for (Path file : recoveredFiles) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn(e.getMessage());
+            }
+        }
+        recoveredFiles.clear();
+        final List<OutboundMessage> result = new ArrayList<>(recovered);
+        recovered.clear();
+        return result;
+    }
+
+    /**
+     * Appends a message and waits until it is durable. If the journal cannot be written the
+     * message is sent without it.
+     *
+     * @param message OutboundMessage
+     */
+    public void append(final OutboundMessage message) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            awaitDurable(write(message));
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            log.warn(String.format("Outbox journal unavailable, sending unjournaled: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Marks a message as needing no further delivery attempts.
+     *
+     * @param message OutboundMessage
+     */
+    public void markDone(final OutboundMessage message) {
+        final long position = message.getJournalPosition();
+        if (position < 0) {
+            return;
+        }
+        message.setJournalPosition(-1);
+        final Segment segment = segments.get(position / segmentSize);
+        if (segment == null) {
+            return;
+        }
+        segment.buffer.put((int) (position % segmentSize) + STATUS_OFFSET, DONE);
+        if (segment.live.decrementAndGet() == 0 && segment.sealed) {
+            release(segment);
+        }
+    }
+
+    /**
+     * Forces the current segment and closes all segments.
+     */
+    public void close() {
+        if (!enabled || current == null) {
+            return;
+        }
+        awaitDurable(written);
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn(e.getMessage());
+            }
+        }
+        segments.clear();
+    }
+
+    /**
+     * Copies a message into the current segment.
+     *
+     * @param message OutboundMessage
+     * @return journal position of the end of the record
+     */
+    private long write(final OutboundMessage message) {
+        final byte[] payload = encode(message);
+        final int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException(
+                    String.format("Message of %d bytes does not fit an outbox segment", payload.length));
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        appendLock.lock();
+        try {
+            if (current.offset + size > segmentSize) {
+                roll();
+            }
+            final Segment segment = current;
+            final int offset = segment.offset;
+            final MappedByteBuffer buffer = segment.buffer;
+            buffer.position(offset + HEADER_SIZE);
+            buffer.put(payload);
+            buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+            buffer.put(offset + STATUS_OFFSET, PENDING);
+            buffer.putInt(offset, payload.length);
+            segment.offset = offset + size;
+            segment.live.incrementAndGet();
+            message.setJournalPosition(position(segment.sequence, offset));
+            written = position(segment.sequence, segment.offset);
+            return written;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the journal is durable up to a position, forcing it if no other caller is.
+     *
+     * @param target journal position
+     */
+    private void awaitDurable(final long target) {
+        if (flushed >= target) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if (flushed < target) {
+                final long end = written;
+                force(current);
+                flushed = end;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Seals the current segment and starts the next one. Called with the append lock held.
+     */
+    private void roll() {
+        final Segment sealed;
+        flushLock.lock();
+        try {
+            sealed = current;
+            force(sealed);
+            current = openSegment(sealed.sequence + 1);
+            written = position(current.sequence, 0);
+            flushed = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            flushLock.unlock();
+        }
+        sealed.sealed = true;
+        if (sealed.live.get() == 0) {
+            release(sealed);
+        }
+    }
+
+    /**
+     * Forces a segment to disk.
+     *
+     * @param segment Segment
+     */
+    private void force(final Segment segment) {
+        final long start = System.nanoTime();
+        segment.buffer.force();
+        forceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closes and deletes a sealed segment whose records are all done.
+     *
+     * @param segment Segment
+     */
+    private void release(final Segment segment) {
+        if (!segment.released.compareAndSet(false, true)) {
+            return;
+        }
+        segments.remove(segment.sequence);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates and maps a new segment.
+     *
+     * @param sequence segment sequence number
+     * @return Segment
+     * @throws IOException when the file cannot be created
+     */
+    private Segment openSegment(final long sequence) throws IOException {
+        final Path path = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        final FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Segment segment = new Segment(sequence, path, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    /**
+     * Reads the pending records of an existing segment.
+     *
+     * @param file    segment file
+     * @param pending receives the pending messages
+     * @throws IOException when the file cannot be read
+     */
+    private static void readPending(final Path file, final List<OutboundMessage> pending) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final int limit = buffer.limit();
+            int offset = 0;
+            while (offset + HEADER_SIZE <= limit) {
+                final int length = buffer.getInt(offset);
+                if (length <= 0 || length > limit - offset - HEADER_SIZE) {
+                    break;
+                }
+                final ByteBuffer payload = buffer.duplicate();
+                payload.position(offset + HEADER_SIZE).limit(offset + HEADER_SIZE + length);
+                final CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                    log.warn(String.format("Outbox segment [%s] is truncated at offset %d", file, offset));
+                    break;
+                }
+                if (buffer.get(offset + STATUS_OFFSET) == PENDING) {
+                    final String from = readField(payload);
+                    final String to = readField(payload);
+                    final String body = readField(payload);
+                    final boolean coalescible = payload.hasRemaining() && (payload.get() & COALESCIBLE) != 0;
+                    pending.add(new OutboundMessage(from, to, body, coalescible));
+                }
+                offset += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Serializes the fields of a message.
+     *
+     * @param message OutboundMessage
+     * @return payload
+     */
+    private static byte[] encode(final OutboundMessage message) {
+        final byte[] from = bytesOf(message.getFrom());
+        final byte[] to = bytesOf(message.getTo());
+        final byte[] body = bytesOf(message.getBody());
+        final ByteBuffer payload = ByteBuffer.allocate(
+                3 * Integer.BYTES + lengthOf(from) + lengthOf(to) + lengthOf(body) + 1);
+        writeField(payload, from);
+        writeField(payload, to);
+        writeField(payload, body);
+        payload.put(message.isCoalescible() ? COALESCIBLE : 0);
+        return payload.array();
+    }
+
+    /**
+     * UTF-8 bytes of a field.
+     *
+     * @param value field
+     * @return bytes, or null
+     */
+    private static byte[] bytesOf(final String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Length of a field's bytes.
+     *
+     * @param value bytes, or null
+     * @return length
+     */
+    private static int lengthOf(final byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    /**
+     * Writes a length-prefixed field.
+     *
+     * @param payload target
+     * @param value   bytes, or null
+     */
+    private static void writeField(final ByteBuffer payload, final byte[] value) {
+        if (value == null) {
+            payload.putInt(NULL_LENGTH);
+        } else {
+            payload.putInt(value.length);
+            payload.put(value);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed field.
+     *
+     * @param payload source
+     * @return field, or null
+     */
+    private static String readField(final ByteBuffer payload) {
+        final int length = payload.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        payload.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Journal position of an offset within a segment.
+     *
+     * @param sequence segment sequence number
+     * @param offset   offset within the segment
+     * @return position
+     */
+    private long position(final long sequence, final int offset) {
+        return sequence * segmentSize + offset;
+    }
+
+    /**
+     * Sequence number of a segment file.
+     *
+     * @param file segment file
+     * @return sequence number
+     */
+    private static long sequenceOf(final Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Journaled messages not yet done.
+     *
+     * @param openSegments segments
+     * @return count
+     */
+    private static double countPending(final Map<Long, Segment> openSegments) {
+        long pending = 0;
+        for (Segment segment : openSegments.values()) {
+            pending += segment.live.get();
+        }
+        return pending;
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        /**
+         * Sequence number.
+         */
+        private final long sequence;
+
+        /**
+         * File.
+         */
+        private final Path path;
+
+        /**
+         * Channel keeping the file open.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Mapped contents.
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Records not yet done.
+         */
+        private final AtomicInteger live = new AtomicInteger();
+
+        /**
+         * Whether the segment has been deleted.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Append offset, guarded by the append lock.
+         */
+        private int offset;
+
+        /**
+         * Whether the segment is full and no longer appended to.
+         */
+        private volatile boolean sealed;
+
+        /**
+         * Segment.
+         *
+         * @param segmentSequence sequence number
+         * @param segmentPath     file
+         * @param segmentChannel  channel
+         * @param segmentBuffer   mapped contents
+         */
+        private Segment(final long segmentSequence,
+                        final Path segmentPath,
+                        final FileChannel segmentChannel,
+                        final MappedByteBuffer segmentBuffer) {
+            sequence = segmentSequence;
+            path = segmentPath;
+            channel = segmentChannel;
+            buffer = segmentBuffer;
+        }
+
+    }
+
+}
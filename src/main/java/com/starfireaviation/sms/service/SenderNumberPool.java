@@ -0,0 +1,325 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Pool of sender (from) numbers.
+ *
+ * <p>Recipients are assigned to a number with rendezvous (highest random weight) hashing: every
+ * number scores the recipient and the highest score wins. Recipients are scored by their parsed
+ * E.164 key, so 5125550199 and +1 (512) 555-0199 get the same number. The assignment is stable,
+ * so replies keep arriving on the number the conversation started on, and adding or removing a
+ * number only moves the recipients that number wins or loses. A number that keeps failing is
+ * skipped for a cool-down period, with its recipients falling back to their next-highest scoring
+ * number.</p>
+ */
+@Slf4j
+public class SenderNumberPool implements MeterBinder {
+
+    /**
+     * Pool settings.
+     */
+    private final ApplicationProperties.NumberPool settings;
+
+    /**
+     * Sender numbers.
+     */
+    private final String[] numbers;
+
+    /**
+     * Per number hash seeds.
+     */
+    private final long[] seeds;
+
+    /**
+     * Per number stats, aligned with numbers.
+     */
+    private final NumberStats[] stats;
+
+    /**
+     * Nanosecond clock for cool-downs.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * SenderNumberPool.
+     *
+     * @param aProps ApplicationProperties
+     */
+    public SenderNumberPool(final ApplicationProperties aProps) {
+        this(aProps, System::nanoTime);
+    }
+
+    /**
+     * SenderNumberPool.
+     *
+     * @param aProps    ApplicationProperties
+     * @param nanoClock nanosecond clock, System::nanoTime outside tests
+     */
+    SenderNumberPool(final ApplicationProperties aProps, final LongSupplier nanoClock) {
+        clock = nanoClock;
+        settings = aProps.getNumberPool();
+        final List<String> configured = new ArrayList<>(settings.getNumbers());
+        if (configured.isEmpty() && aProps.getFromAddress() != null) {
+            configured.add(aProps.getFromAddress());
+        }
+        numbers = configured.toArray(new String[0]);
+        seeds = new long[numbers.length];
+        stats = new NumberStats[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            seeds[i] = mix(PhoneNumbers.parse(numbers[i]));
+            stats[i] = new NumberStats(clock);
+        }
+    }
+
+    /**
+     * Selects the sender number for a recipient.
+     *
+     * @param toAddress recipient
+     * @return from-number, or null if the pool is empty
+     */
+    public String select(final String toAddress) {
+        if (numbers.length == 0) {
+            return null;
+        }
+        if (numbers.length == 1) {
+            return numbers[0];
+        }
+        final long key = PhoneNumbers.parse(toAddress);
+        final long now = clock.getAsLong();
+        int best = -1;
+        long bestScore = 0;
+        int bestHealthy = -1;
+        long bestHealthyScore = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            final long score = mix(key ^ seeds[i]);
+            if (best < 0 || Long.compareUnsigned(score, bestScore) > 0) {
+                best = i;
+                bestScore = score;
+            }
+            if (stats[i].isHealthy(now)
+                    && (bestHealthy < 0 || Long.compareUnsigned(score, bestHealthyScore) > 0)) {
+                bestHealthy = i;
+                bestHealthyScore = score;
+            }
+        }
+        return numbers[bestHealthy >= 0 ? bestHealthy : best];
+    }
+
+    /**
+     * Records the outcome of a send from a pool number.
+     *
+     * @param fromAddress from-number
+     * @param success     whether the provider accepted the message
+     */
+    public void recordResult(final String fromAddress, final boolean success) {
+        for (int i = 0; i < numbers.length; i++) {
+            if (numbers[i].equals(fromAddress)) {
+                if (success) {
+                    stats[i].recordSuccess();
+                } else if (stats[i].recordFailure(settings)) {
+                    log.warn(String.format("Sender number [%s] marked unhealthy", fromAddress));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stats by sender number.
+     *
+     * @return unmodifiable map, in configuration order
+     */
+    public Map<String, NumberStats> getStats() {
+        final Map<String, NumberStats> result = new LinkedHashMap<>();
+        for (int i = 0; i < numbers.length; i++) {
+            result.put(numbers[i], stats[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (int i = 0; i < numbers.length; i++) {
+            FunctionCounter.builder("sms.sender.sent", stats[i], NumberStats::getSent)
+                    .description("Messages accepted, by sender number")
+                    .tag("number", numbers[i])
+                    .register(registry);
+            FunctionCounter.builder("sms.sender.failed", stats[i], NumberStats::getFailed)
+                    .description("Messages failed, by sender number")
+                    .tag("number", numbers[i])
+                    .register(registry);
+            Gauge.builder("sms.sender.healthy", stats[i], numberStats -> numberStats.isHealthy() ? 1 : 0)
+                    .description("Whether the sender number is in rotation")
+                    .tag("number", numbers[i])
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 64-bit finalizer (SplitMix64) to spread combined hashes.
+     *
+     * @param value value
+     * @return mixed value
+     */
+    private static long mix(final long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Health and throughput of a single sender number.
+     */
+    public static final class NumberStats {
+
+        /**
+         * Nanosecond clock for cool-downs.
+         */
+        private final LongSupplier clock;
+
+        /**
+         * Messages accepted.
+         */
+        private final LongAdder sent = new LongAdder();
+
+        /**
+         * Messages failed.
+         */
+        private final LongAdder failed = new LongAdder();
+
+        /**
+         * Failures since the last success.
+         */
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /**
+         * Clock time until which the number is skipped.
+         */
+        private volatile long unhealthyUntil;
+
+        /**
+         * Whether the number has been taken out of rotation (until unhealthyUntil).
+         */
+        private volatile boolean unhealthy;
+
+        /**
+         * NumberStats.
+         *
+         * @param nanoClock nanosecond clock
+         */
+        NumberStats(final LongSupplier nanoClock) {
+            clock = nanoClock;
+        }
+
+        /**
+         * Messages accepted.
+         *
+         * @return count
+         */
+        public long getSent() {
+            return sent.sum();
+        }
+
+        /**
+         * Messages failed.
+         *
+         * @return count
+         */
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        /**
+         * Failures since the last success.
+         *
+         * @return count
+         */
+        public int getConsecutiveFailures() {
+            return consecutiveFailures.get();
+        }
+
+        /**
+         * Whether the number is currently selected for new messages.
+         *
+         * @return healthy
+         */
+        public boolean isHealthy() {
+            return isHealthy(clock.getAsLong());
+        }
+
+        /**
+         * Whether the number is healthy at the given time.
+         *
+         * @param now clock time
+         * @return healthy
+         */
+        boolean isHealthy(final long now) {
+            return !unhealthy || now - unhealthyUntil >= 0;
+        }
+
+        /**
+         * Records a success.
+         */
+        void recordSuccess() {
+            sent.increment();
+            consecutiveFailures.set(0);
+            unhealthy = false;
+        }
+
+        /**
+         * Records a failure.
+         *
+         * @param poolSettings ApplicationProperties.NumberPool
+         * @return true if this failure made the number unhealthy
+         */
+        boolean recordFailure(final ApplicationProperties.NumberPool poolSettings) {
+            failed.increment();
+            final long now = clock.getAsLong();
+            if (consecutiveFailures.incrementAndGet() >= poolSettings.getFailureThreshold() && isHealthy(now)) {
+                unhealthyUntil = now + TimeUnit.MILLISECONDS.toNanos(poolSettings.getCoolDown());
+                unhealthy = true;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
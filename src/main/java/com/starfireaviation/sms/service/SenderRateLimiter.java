@@ -0,0 +1,209 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.util.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per sender number rate limiter.
+ *
+ * <p>Each from-number gets its own {@link TokenBucket} sized to that number's messages-per-second
+ * budget, so sends are smoothed to what Twilio will accept instead of being rejected with 429s.</p>
+ *
+ * <p>{@link #acquire(String)} blocks the calling thread. The {@link OutboundPipeline} calls it from
+ * the consumer that owns the message's stripe (or from the message's virtual thread), so while one
+ * sender number waits for a token every other message queued behind it on that stripe waits too.
+ * A number with a low budget therefore slows the recipients that hash to its stripes; give busy
+ * numbers a higher sms.rate-limit.numbers entry or spread sends over more numbers.</p>
+ */
+public class SenderRateLimiter implements MeterBinder {
+
+    /**
+     * Rate limit settings.
+     */
+    private final ApplicationProperties.RateLimit settings;
+
+    /**
+     * Buckets by from-number.
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Tokens taken.
+     */
+    private final LongAdder acquired = new LongAdder();
+
+    /**
+     * Tokens that had to be waited for.
+     */
+    private final LongAdder delayed = new LongAdder();
+
+    /**
+     * Total wait time.
+     */
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    /**
+     * Longest single wait.
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Nanosecond clock the buckets are scheduled in.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * SenderRateLimiter.
+     *
+     * @param rateLimit ApplicationProperties.RateLimit
+     */
+    public SenderRateLimiter(final ApplicationProperties.RateLimit rateLimit) {
+        this(rateLimit, System::nanoTime);
+    }
+
+    /**
+     * SenderRateLimiter.
+     *
+     * @param rateLimit ApplicationProperties.RateLimit
+     * @param nanoClock nanosecond clock, System::nanoTime outside tests
+     */
+    SenderRateLimiter(final ApplicationProperties.RateLimit rateLimit, final LongSupplier nanoClock) {
+        settings = rateLimit;
+        clock = nanoClock;
+    }
+
+    /**
+     * Blocks until the from-number may send another message.
+     *
+     * @param fromAddress from-number
+     * @return nanoseconds spent waiting
+     */
+    public long acquire(final String fromAddress) {
+        if (!settings.isEnabled() || fromAddress == null) {
+            return 0L;
+        }
+        final long wait = buckets.computeIfAbsent(fromAddress, this::createBucket).acquire();
+        acquired.increment();
+        if (wait > 0) {
+            delayed.increment();
+            totalWaitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+        }
+        return wait;
+    }
+
+    /**
+     * Messages-per-second budget for a from-number.
+     *
+     * @param fromAddress from-number
+     * @return messages per second
+     */
+    public double getMessagesPerSecond(final String fromAddress) {
+        return settings.getNumbers().getOrDefault(fromAddress, settings.getMessagesPerSecond());
+    }
+
+    /**
+     * Tokens taken.
+     *
+     * @return count
+     */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * Tokens that had to be waited for.
+     *
+     * @return count
+     */
+    public long getDelayed() {
+        return delayed.sum();
+    }
+
+    /**
+     * Total wait time.
+     *
+     * @return nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    /**
+     * Longest single wait.
+     *
+     * @return nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("sms.ratelimit.acquired", acquired, LongAdder::sum)
+                .description("Send tokens taken")
+                .register(registry);
+        FunctionCounter.builder("sms.ratelimit.delayed", delayed, LongAdder::sum)
+                .description("Send tokens that had to be waited for")
+                .register(registry);
+        FunctionCounter.builder("sms.ratelimit.wait", totalWaitNanos, adder -> toSeconds(adder.sum()))
+                .description("Total time spent waiting for send tokens")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("sms.ratelimit.wait.max", maxWaitNanos, max -> toSeconds(max.get()))
+                .description("Longest single wait for a send token")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Converts nanoseconds to fractional seconds.
+     *
+     * @param nanos nanoseconds
+     * @return seconds
+     */
+    private static double toSeconds(final long nanos) {
+        return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Creates the bucket for a from-number.
+     *
+     * @param fromAddress from-number
+     * @return TokenBucket
+     */
+    private TokenBucket createBucket(final String fromAddress) {
+        return new TokenBucket(getMessagesPerSecond(fromAddress), settings.getBurst(), clock);
+    }
+
+}
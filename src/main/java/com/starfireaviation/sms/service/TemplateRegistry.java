@@ -0,0 +1,205 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.MessageTemplate;
+import com.starfireaviation.sms.util.PlaceholderTemplate;
+import freemarker.cache.TemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of compiled message templates.
+ *
+ * <p>Every {@link MessageTemplate} is loaded and parsed once at construction; a missing or
+ * malformed template fails application startup. The registry is immutable afterwards, so the
+ * render path only performs reads. Render latency is recorded per template and outcome as
+ * sms.template.render.</p>
+ *
+ * <p>When compiled templates are enabled, templates that only substitute plain variables are
+ * also compiled into a {@link PlaceholderTemplate} and rendered without FreeMarker. Everything
+ * else, including values a placeholder template cannot format itself, goes through FreeMarker.</p>
+ */
+@Slf4j
+public class TemplateRegistry {
+
+    /**
+     * Compiled templates.
+     */
+    private final Map<MessageTemplate, Template> templates;
+
+    /**
+     * Templates rendered without FreeMarker.
+     */
+    private final Map<MessageTemplate, PlaceholderTemplate> placeholders;
+
+    /**
+     * Successful render timers.
+     */
+    private final Map<MessageTemplate, Timer> renderTimers;
+
+    /**
+     * Failed render timers.
+     */
+    private final Map<MessageTemplate, Timer> failureTimers;
+
+    /**
+     * TemplateRegistry.
+     *
+     * @param config        FreeMarker Configuration
+     * @param settings      ApplicationProperties.Templates
+     * @param meterRegistry MeterRegistry
+     */
+    public TemplateRegistry(final Configuration config,
+                            final ApplicationProperties.Templates settings,
+                            final MeterRegistry meterRegistry) {
+        final Map<MessageTemplate, Template> compiled = new EnumMap<>(MessageTemplate.class);
+        final Map<MessageTemplate, PlaceholderTemplate> plain = new EnumMap<>(MessageTemplate.class);
+        final Map<MessageTemplate, Timer> successes = new EnumMap<>(MessageTemplate.class);
+        final Map<MessageTemplate, Timer> failures = new EnumMap<>(MessageTemplate.class);
+        for (MessageTemplate messageTemplate : MessageTemplate.values()) {
+            try {
+                final Template template = config.getTemplate(messageTemplate.getFileName());
+                compiled.put(messageTemplate, template);
+                if (settings.isCompiled()) {
+                    final PlaceholderTemplate placeholder =
+                            PlaceholderTemplate.compile(loadSource(config, template));
+                    if (placeholder != null) {
+                        plain.put(messageTemplate, placeholder);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to load template " + messageTemplate.getFileName(), e);
+            }
+            successes.put(messageTemplate, renderTimer(meterRegistry, messageTemplate, "success"));
+            failures.put(messageTemplate, renderTimer(meterRegistry, messageTemplate, "failure"));
+        }
+        templates = Collections.unmodifiableMap(compiled);
+        placeholders = Collections.unmodifiableMap(plain);
+        renderTimers = Collections.unmodifiableMap(successes);
+        failureTimers = Collections.unmodifiableMap(failures);
+        log.info(String.format(
+                "Loaded %d message templates, %d compiled to placeholders",
+                templates.size(),
+                placeholders.size()));
+    }
+
+    /**
+     * Renders a template.
+     *
+     * @param messageTemplate MessageTemplate
+     * @param model           template model
+     * @return rendered text
+     * @throws IOException       when output cannot be written
+     * @throws TemplateException when the template fails to render
+     */
+    public String render(final MessageTemplate messageTemplate, final Object model)
+            throws IOException, TemplateException {
+        final long start = System.nanoTime();
+        try {
+            final PlaceholderTemplate placeholder = placeholders.get(messageTemplate);
+            String text = placeholder != null ? placeholder.render(model) : null;
+            if (text == null) {
+                final StringWriter writer = new StringWriter();
+                templates.get(messageTemplate).process(model, writer);
+                text = writer.toString();
+            }
+            renderTimers.get(messageTemplate).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return text;
+        } catch (IOException | TemplateException | RuntimeException e) {
+            failureTimers.get(messageTemplate).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Compiled template.
+     *
+     * @param messageTemplate MessageTemplate
+     * @return Template
+     */
+    public Template getTemplate(final MessageTemplate messageTemplate) {
+        return templates.get(messageTemplate);
+    }
+
+    /**
+     * Whether a template is rendered without FreeMarker.
+     *
+     * @param messageTemplate MessageTemplate
+     * @return true if compiled to a placeholder template
+     */
+    public boolean isCompiled(final MessageTemplate messageTemplate) {
+        return placeholders.containsKey(messageTemplate);
+    }
+
+    /**
+     * Reads the source of a loaded template.
+     *
+     * @param config   FreeMarker Configuration
+     * @param template Template
+     * @return source
+     * @throws IOException when the source cannot be read
+     */
+    private static String loadSource(final Configuration config, final Template template) throws IOException {
+        final TemplateLoader loader = config.getTemplateLoader();
+        final Object source = loader.findTemplateSource(template.getSourceName());
+        if (source == null) {
+            throw new IOException("Template source not found: " + template.getSourceName());
+        }
+        try (Reader reader = loader.getReader(source, template.getEncoding())) {
+            final StringWriter writer = new StringWriter();
+            reader.transferTo(writer);
+            return writer.toString();
+        } finally {
+            loader.closeTemplateSource(source);
+        }
+    }
+
+    /**
+     * Registers the render timer of a template.
+     *
+     * @param meterRegistry   MeterRegistry
+     * @param messageTemplate MessageTemplate
+     * @param outcome         success or failure
+     * @return Timer
+     */
+    private static Timer renderTimer(
+            final MeterRegistry meterRegistry,
+            final MessageTemplate messageTemplate,
+            final String outcome) {
+        return Timer.builder("sms.template.render")
+                .description("Template render latency")
+                .tag("template", messageTemplate.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
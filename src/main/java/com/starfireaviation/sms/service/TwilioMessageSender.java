@@ -0,0 +1,208 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.model.OutboundMessage;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.type.PhoneNumber;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TwilioMessageSender.
+ *
+ * <p>Every API call is timed as sms.twilio.requests, tagged with its outcome and, for failures,
+ * the Twilio error code (or the exception type when Twilio returned none).</p>
+ */
+public class TwilioMessageSender implements MessageSender {
+
+    /**
+     * First HTTP client error status.
+     */
+    private static final int HTTP_CLIENT_ERROR = 400;
+
+    /**
+     * HTTP too many requests status.
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * First HTTP server error status.
+     */
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    /**
+     * Twilio error: attempt to send to unsubscribed recipient.
+     */
+    private static final int UNSUBSCRIBED_RECIPIENT = 21610;
+
+    /**
+     * Twilio errors caused by the from-number: invalid From (21212), From not SMS capable (21606),
+     * From queue full (21611), From not a Twilio number (21659) or not on this account (21660).
+     */
+    private static final Set<Integer> SENDER_ERRORS = Set.of(21212, 21606, 21611, 21659, 21660);
+
+    /**
+     * TwilioRestClient.
+     */
+    private final TwilioRestClient twilioRestClient;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Successful request timer.
+     */
+    private final Timer successTimer;
+
+    /**
+     * TwilioMessageSender.
+     *
+     * @param client   TwilioRestClient
+     * @param registry MeterRegistry
+     */
+    public TwilioMessageSender(final TwilioRestClient client, final MeterRegistry registry) {
+        twilioRestClient = client;
+        meterRegistry = registry;
+        successTimer = requestTimer("success", "none");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String send(final OutboundMessage message) {
+        final long start = System.nanoTime();
+        try {
+            final String sid = com.twilio.rest.api.v2010.account.Message
+                    .creator(new PhoneNumber(message.getTo()), new PhoneNumber(message.getFrom()), message.getBody())
+                    .create(twilioRestClient)
+                    .getSid();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return sid;
+        } catch (RuntimeException e) {
+            requestTimer("failure", errorCode(e)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Only failures known to have happened before Twilio could accept the message are retried:
+     * rate limiting (429), server errors (5xx) and failures to connect, resolve the host or lease a
+     * pooled connection. Anything else, in particular a read timeout or a dropped connection after
+     * the request was written, is terminal, because Twilio may already have accepted the message
+     * and resending it (now or from the outbox after a restart) would text the recipient twice.
+     *
+     * @param e failure thrown by send
+     * @return retryable
+     */
+    @Override
+    public boolean isRetryable(final RuntimeException e) {
+        if (!(e instanceof ApiException)) {
+            return false;
+        }
+        final Integer status = ((ApiException) e).getStatusCode();
+        if (status != null) {
+            return status == HTTP_TOO_MANY_REQUESTS || status >= HTTP_SERVER_ERROR;
+        }
+        return isNotSent(e.getCause());
+    }
+
+    /**
+     * Transport failures, rate limiting, server errors and from-number errors are the sender's; any
+     * other client error, e.g. an invalid or unsubscribed To number, is the recipient's.
+     *
+     * @param e failure thrown by send
+     * @return true if the sender number or Twilio is at fault
+     */
+    @Override
+    public boolean isSenderFailure(final RuntimeException e) {
+        if (e instanceof ApiException) {
+            final Integer status = ((ApiException) e).getStatusCode();
+            if (status != null && status >= HTTP_CLIENT_ERROR && status < HTTP_SERVER_ERROR
+                    && status != HTTP_TOO_MANY_REQUESTS) {
+                return SENDER_ERRORS.contains(((ApiException) e).getCode());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Twilio rejects messages to numbers that replied STOP with error 21610.
+     *
+     * @param e failure thrown by send
+     * @return true if the recipient opted out
+     */
+    @Override
+    public boolean isOptedOut(final RuntimeException e) {
+        return e instanceof ApiException
+                && Integer.valueOf(UNSUBSCRIBED_RECIPIENT).equals(((ApiException) e).getCode());
+    }
+
+    /**
+     * Whether an I/O failure happened before the request was sent: the connection could not be
+     * opened (ConnectException, ConnectTimeoutException), the host could not be resolved, or no
+     * pooled connection became free (ConnectionPoolTimeoutException).
+     *
+     * @param cause cause of the failure, may be null
+     * @return true if the request cannot have reached Twilio
+     */
+    private static boolean isNotSent(final Throwable cause) {
+        return cause instanceof ConnectException
+                || cause instanceof ConnectTimeoutException
+                || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * Twilio error code of a failed request.
+     *
+     * @param e exception
+     * @return error code, or the exception type
+     */
+    private static String errorCode(final RuntimeException e) {
+        if (e instanceof ApiException && ((ApiException) e).getCode() != null) {
+            return String.valueOf(((ApiException) e).getCode());
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * Request timer for an outcome and error code.
+     *
+     * @param outcome success or failure
+     * @param code    error code
+     * @return Timer
+     */
+    private Timer requestTimer(final String outcome, final String code) {
+        return Timer.builder("sms.twilio.requests")
+                .description("Twilio Messages API latency")
+                .tag("outcome", outcome)
+                .tag("code", code)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over primitive <code>long</code> keys.
+ *
+ * <p>Answers "definitely absent" or "possibly present" from a fixed bit array without locking,
+ * so it can screen lookups in front of an exact set. The bit positions of a key are derived from
+ * two 64-bit hashes (h1 + i * h2). Bits are only ever set, so removing a key from the exact set
+ * leaves it possibly present here until the filter is rebuilt.</p>
+ */
+public class BloomFilter {
+
+    /**
+     * Bits, 64 per word.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * Number of bits.
+     */
+    private final long bitCount;
+
+    /**
+     * Number of bits set per key.
+     */
+    private final int hashCount;
+
+    /**
+     * BloomFilter.
+     *
+     * @param expectedInsertions keys the filter is sized for
+     * @param falsePositiveRate  target false positive rate at that size, in (0, 1)
+     */
+    public BloomFilter(final long expectedInsertions, final double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid bloom filter false positive rate [%s]", falsePositiveRate));
+        }
+        final long insertions = Math.max(1L, expectedInsertions);
+        final double ln2 = Math.log(2);
+        final long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        final int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1L, (bits + 63) >>> 6));
+        words = new AtomicLongArray(wordCount);
+        bitCount = (long) wordCount << 6;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * ln2));
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key key
+     */
+    public void put(final long key) {
+        final long h1 = mix(key);
+        final long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, set) -> current | set);
+            }
+        }
+    }
+
+    /**
+     * Whether a key may have been added.
+     *
+     * @param key key
+     * @return false if the key was definitely never added
+     */
+    public boolean mightContain(final long key) {
+        final long h1 = mix(key);
+        final long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit finalizer (SplitMix64).
+     *
+     * @param value value
+     * @return mixed value
+     */
+    private static long mix(final long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that caps how many tasks run at once on a delegate executor.
+ *
+ * <p>A virtual thread executor starts a thread for every task without limit. Wrapped in a
+ * BoundedExecutor, once every permit is taken {@link #execute(Runnable)} blocks the submitting
+ * thread until a running task finishes.</p>
+ */
+public class BoundedExecutor implements Executor {
+
+    /**
+     * Executor running the tasks.
+     */
+    private final ExecutorService delegate;
+
+    /**
+     * Maximum tasks running at once.
+     */
+    private final int maxConcurrent;
+
+    /**
+     * Permits for running tasks.
+     */
+    private final Semaphore permits;
+
+    /**
+     * BoundedExecutor.
+     *
+     * @param executor executor running the tasks
+     * @param limit    maximum tasks running at once
+     */
+    public BoundedExecutor(final ExecutorService executor, final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit: " + limit);
+        }
+        delegate = executor;
+        maxConcurrent = limit;
+        permits = new Semaphore(limit);
+    }
+
+    /**
+     * Runs a task once a permit is available, waiting for one if necessary.
+     *
+     * @param task task
+     */
+    @Override
+    public void execute(final Runnable task) {
+        permits.acquireUninterruptibly();
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Tasks currently running.
+     *
+     * @return count
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the running ones to finish.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of timeout
+     * @return true if every task finished in time
+     */
+    public boolean shutdown(final long timeout, final TimeUnit unit) {
+        delegate.shutdown();
+        try {
+            return delegate.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.sms.model.TwilioPart;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass parser for the application/x-www-form-urlencoded bodies Twilio posts to webhooks.
+ *
+ * <p>Keys are matched against {@link TwilioPart} in place, so unknown fields (MediaUrl0,
+ * OptOutType, ...) are skipped without allocating. Only values of known fields are decoded; a value
+ * without escapes is returned as a plain substring, otherwise it is decoded into a scratch buffer
+ * sized to the encoded value. A value with a malformed escape is skipped.</p>
+ *
+ * <p>For raw request bytes, {@link #index(byte[], int[])} records where each known value sits in
+ * one scan, and {@link #decode(byte[], int, int)} decodes a single value on demand.</p>
+ */
+public final class FormUrlEncodedParser {
+
+    /**
+     * Receives decoded fields.
+     */
+    @FunctionalInterface
+    public interface FieldHandler {
+
+        /**
+         * Called once per known field, in body order.
+         *
+         * @param part  TwilioPart
+         * @param value decoded value
+         */
+        void field(TwilioPart part, String value);
+
+    }
+
+    /**
+     * Utility class.
+     */
+    private FormUrlEncodedParser() {
+    }
+
+    /**
+     * Parses a form-urlencoded body.
+     *
+     * @param body    body, may be null
+     * @param handler receives each known field
+     */
+    public static void parse(final String body, final FieldHandler handler) {
+        if (body == null) {
+            return;
+        }
+        final int length = body.length();
+        int start = 0;
+        while (start < length) {
+            int end = body.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            final int separator = indexOf(body, '=', start, end);
+            if (separator > start) {
+                final TwilioPart part = TwilioPart.lookup(body, start, separator);
+                if (part != null) {
+                    final String value = decode(body, separator + 1, end);
+                    if (value != null) {
+                        handler.field(part, value);
+                    }
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Records the value offsets of every known field in a form-urlencoded body. For part
+     * <code>p</code>, <code>spans[2 * p.ordinal()]</code> receives the start (inclusive) and
+     * <code>spans[2 * p.ordinal() + 1]</code> the end (exclusive) of its encoded value; parts that
+     * are absent are left untouched. When a key repeats, the last occurrence wins.
+     *
+     * @param body  body
+     * @param spans offsets, at least twice the number of parts
+     */
+    public static void index(final byte[] body, final int[] spans) {
+        final int length = body.length;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            int separator = -1;
+            while (end < length && body[end] != '&') {
+                if (separator < 0 && body[end] == '=') {
+                    separator = end;
+                }
+                end++;
+            }
+            if (separator > start) {
+                final TwilioPart part = TwilioPart.lookup(body, start, separator);
+                if (part != null) {
+                    spans[2 * part.ordinal()] = separator + 1;
+                    spans[2 * part.ordinal() + 1] = end;
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Decodes a region of a form-urlencoded byte array (UTF-8).
+     *
+     * @param source bytes
+     * @param start  first byte (inclusive)
+     * @param end    last byte (exclusive)
+     * @return decoded value, or null if the region contains a malformed escape
+     */
+    public static String decode(final byte[] source, final int start, final int end) {
+        int i = start;
+        while (i < end && source[i] != '%' && source[i] != '+') {
+            i++;
+        }
+        if (i == end) {
+            return new String(source, start, end - start, StandardCharsets.UTF_8);
+        }
+        final byte[] buffer = new byte[end - start];
+        int length = i - start;
+        System.arraycopy(source, start, buffer, 0, length);
+        while (i < end) {
+            final byte b = source[i];
+            if (b == '+') {
+                buffer[length++] = ' ';
+                i++;
+            } else if (b == '%') {
+                if (i + 2 >= end) {
+                    return null;
+                }
+                final int high = Character.digit(source[i + 1], 16);
+                final int low = Character.digit(source[i + 2], 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                buffer[length++] = (byte) ((high << 4) | low);
+                i += 3;
+            } else {
+                buffer[length++] = b;
+                i++;
+            }
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a region of a form-urlencoded string.
+     *
+     * @param source string
+     * @param start  first char (inclusive)
+     * @param end    last char (exclusive)
+     * @return decoded value, or null if the region contains a malformed escape
+     */
+    public static String decode(final String source, final int start, final int end) {
+        int i = start;
+        while (i < end) {
+            final char c = source.charAt(i);
+            if (c == '%' || c == '+' || c >= 0x80) {
+                break;
+            }
+            i++;
+        }
+        if (i == end) {
+            return source.substring(start, end);
+        }
+        final byte[] buffer = new byte[(end - start) * 3];
+        int length = 0;
+        for (int j = start; j < i; j++) {
+            buffer[length++] = (byte) source.charAt(j);
+        }
+        while (i < end) {
+            final char c = source.charAt(i);
+            if (c == '+') {
+                buffer[length++] = ' ';
+                i++;
+            } else if (c == '%') {
+                if (i + 2 >= end) {
+                    return null;
+                }
+                final int high = Character.digit(source.charAt(i + 1), 16);
+                final int low = Character.digit(source.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                buffer[length++] = (byte) ((high << 4) | low);
+                i += 3;
+            } else {
+                final int codePoint = source.codePointAt(i);
+                length = appendUtf8(buffer, length, codePoint);
+                i += Character.charCount(codePoint);
+            }
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a char within a region.
+     *
+     * @param source string
+     * @param c      char to find
+     * @param start  first char (inclusive)
+     * @param end    last char (exclusive)
+     * @return index, or -1
+     */
+    private static int indexOf(final String source, final char c, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends an unescaped code point as UTF-8. Form encoding never leaves non-ASCII chars
+     * unescaped, but lenient clients do.
+     *
+     * @param buffer    target
+     * @param length    current length
+     * @param codePoint code point
+     * @return new length
+     */
+    private static int appendUtf8(final byte[] buffer, final int length, final int codePoint) {
+        int position = length;
+        if (codePoint < 0x80) {
+            buffer[position++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return position;
+    }
+
+}
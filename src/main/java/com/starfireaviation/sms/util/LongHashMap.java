@@ -0,0 +1,346 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+/**
+ * Hash map from primitive <code>long</code> keys to objects.
+ *
+ * <p>Open addressing with linear probing over parallel key and value arrays, so lookups neither
+ * box the key nor chase entry nodes. A null value marks a free slot, which is why null values are
+ * not allowed. Removal shifts the following entries of the probe run back instead of leaving
+ * tombstones. Not thread-safe.</p>
+ *
+ * @param <V> value type
+ */
+public class LongHashMap<V> {
+
+    /**
+     * Receives entries.
+     *
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        /**
+         * Called once per entry.
+         *
+         * @param key   key
+         * @param value value
+         */
+        void accept(long key, V value);
+
+    }
+
+    /**
+     * Tests entries.
+     *
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    public interface EntryPredicate<V> {
+
+        /**
+         * Tests an entry.
+         *
+         * @param key   key
+         * @param value value
+         * @return true to select the entry
+         */
+        boolean test(long key, V value);
+
+    }
+
+    /**
+     * Smallest table size.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Keys, by slot.
+     */
+    private long[] keys;
+
+    /**
+     * Values, by slot; null for a free slot.
+     */
+    private Object[] values;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Size at which the table grows (three quarters full).
+     */
+    private int threshold;
+
+    /**
+     * LongHashMap.
+     */
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * LongHashMap.
+     *
+     * @param expectedSize number of entries to hold without growing
+     */
+    public LongHashMap(final int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Value for a key.
+     *
+     * @param key key
+     * @return value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        final int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Whether a key is present.
+     *
+     * @param key key
+     * @return true if present
+     */
+    public boolean containsKey(final long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key   key
+     * @param value value, not null
+     * @return previous value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key key
+     * @return removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Removes a key if it is mapped to the given value (compared by identity).
+     *
+     * @param key   key
+     * @param value expected value
+     * @return true if removed
+     */
+    public boolean remove(final long key, final V value) {
+        final int slot = find(key);
+        if (slot < 0 || values[slot] != value) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Removes the entries matching a predicate.
+     *
+     * @param predicate selects entries to remove
+     * @return number of entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(final EntryPredicate<? super V> predicate) {
+        final long[] matches = new long[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null && predicate.test(keys[slot], (V) values[slot])) {
+                matches[count++] = keys[slot];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(matches[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Visits every entry, in no particular order.
+     *
+     * @param consumer receives each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final EntryConsumer<? super V> consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                consumer.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether the map is empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Spreads a key over the table. Also used by {@link LongHashSet}.
+     *
+     * @param key key
+     * @return hash
+     */
+    static int hash(final long key) {
+        final long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Power-of-two table size that holds an expected number of entries below the threshold.
+     *
+     * @param expectedSize expected entries
+     * @return table size
+     */
+    static int tableSizeFor(final int expectedSize) {
+        final long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+        if (needed > 1 << 30) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Slot holding a key.
+     *
+     * @param key key
+     * @return slot, or -1
+     */
+    private int find(final long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot and shifts back the entries of the probe run that follows it.
+     *
+     * @param slot slot to free
+     */
+    private void removeAt(final int slot) {
+        final int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (values[next] != null) {
+            final int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[free] = null;
+        size--;
+    }
+
+    /**
+     * Allocates empty tables.
+     *
+     * @param capacity table size, a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = capacity / 4 * 3;
+    }
+
+    /**
+     * Rehashes into a larger table.
+     *
+     * @param capacity new table size
+     */
+    private void resize(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+}
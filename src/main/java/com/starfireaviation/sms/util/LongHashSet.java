@@ -0,0 +1,220 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Hash set of primitive <code>long</code> values.
+ *
+ * <p>Open addressing with linear probing over a single key array, using 0 to mark a free slot;
+ * the value 0 itself is tracked by a flag. Removal shifts the following entries of the probe run
+ * back instead of leaving tombstones. Not thread-safe.</p>
+ */
+public class LongHashSet {
+
+    /**
+     * Marks a free slot.
+     */
+    private static final long FREE = 0L;
+
+    /**
+     * Values, by slot.
+     */
+    private long[] keys;
+
+    /**
+     * Whether 0 is in the set.
+     */
+    private boolean containsFree;
+
+    /**
+     * Number of values, including 0.
+     */
+    private int size;
+
+    /**
+     * Size at which the table grows (three quarters full).
+     */
+    private int threshold;
+
+    /**
+     * LongHashSet.
+     */
+    public LongHashSet() {
+        this(0);
+    }
+
+    /**
+     * LongHashSet.
+     *
+     * @param expectedSize number of values to hold without growing
+     */
+    public LongHashSet(final int expectedSize) {
+        allocate(LongHashMap.tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value value
+     * @return true if the value was not already present
+     */
+    public boolean add(final long value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        final int mask = keys.length - 1;
+        int slot = LongHashMap.hash(value) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Whether a value is present.
+     *
+     * @param value value
+     * @return true if present
+     */
+    public boolean contains(final long value) {
+        return value == FREE ? containsFree : find(value) >= 0;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value value
+     * @return true if it was present
+     */
+    public boolean remove(final long value) {
+        if (value == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        final int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        final int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != FREE) {
+            final int home = LongHashMap.hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Visits every value, in no particular order.
+     *
+     * @param consumer receives each value
+     */
+    public void forEach(final LongConsumer consumer) {
+        if (containsFree) {
+            consumer.accept(FREE);
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                consumer.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Number of values.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Slot holding a non-zero value.
+     *
+     * @param value value
+     * @return slot, or -1
+     */
+    private int find(final long value) {
+        final int mask = keys.length - 1;
+        int slot = LongHashMap.hash(value) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity table size, a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        threshold = capacity / 4 * 3;
+    }
+
+    /**
+     * Rehashes into a larger table.
+     *
+     * @param capacity new table size
+     */
+    private void resize(final int capacity) {
+        final long[] oldKeys = keys;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (long key : oldKeys) {
+            if (key != FREE) {
+                int slot = LongHashMap.hash(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+}
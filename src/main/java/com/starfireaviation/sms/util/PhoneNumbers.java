@@ -0,0 +1,124 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+/**
+ * Phone number normalization.
+ *
+ * <p>A number is reduced to its E.164 digits (country code and national number, at most 15) and
+ * encoded as a positive <code>long</code>, so numbers can be compared, hashed and stored without
+ * strings. Parsing is a single pass without allocation: a leading <code>+</code> or
+ * <code>00</code> marks an international number, spaces, dashes, dots and parentheses are ignored,
+ * and anything else makes the number invalid. A number without an international prefix is taken
+ * as North American (+1) when it has 10 digits, or 11 digits starting with 1, and as already
+ * carrying its country code otherwise.</p>
+ */
+public final class PhoneNumbers {
+
+    /**
+     * Key of a number that could not be parsed.
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * Maximum digits in an E.164 number.
+     */
+    private static final int MAX_DIGITS = 15;
+
+    /**
+     * Digits in a North American national number.
+     */
+    private static final int NANP_DIGITS = 10;
+
+    /**
+     * Key of +1 followed by ten zeros.
+     */
+    private static final long NANP_BASE = 10_000_000_000L;
+
+    /**
+     * Utility class.
+     */
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Parses a phone number into its E.164 key.
+     *
+     * @param number phone number, may be null
+     * @return key, or {@link #INVALID}
+     */
+    public static long parse(final CharSequence number) {
+        if (number == null) {
+            return INVALID;
+        }
+        final int length = number.length();
+        int i = 0;
+        while (i < length && isSeparator(number.charAt(i))) {
+            i++;
+        }
+        boolean international = false;
+        if (i < length && number.charAt(i) == '+') {
+            international = true;
+            i++;
+        } else if (i + 1 < length && number.charAt(i) == '0' && number.charAt(i + 1) == '0') {
+            international = true;
+            i += 2;
+        }
+        long key = 0;
+        int digits = 0;
+        for (; i < length; i++) {
+            final char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == 0 && c == '0' || ++digits > MAX_DIGITS) {
+                    return INVALID;
+                }
+                key = key * 10 + (c - '0');
+            } else if (!isSeparator(c)) {
+                return INVALID;
+            }
+        }
+        if (digits == 0) {
+            return INVALID;
+        }
+        if (!international && digits == NANP_DIGITS) {
+            return NANP_BASE + key;
+        }
+        return key;
+    }
+
+    /**
+     * Formats a key as an E.164 string.
+     *
+     * @param key key
+     * @return number with leading +, or null if the key is invalid
+     */
+    public static String format(final long key) {
+        return key <= 0 ? null : "+" + key;
+    }
+
+    /**
+     * Whether a char may separate digit groups.
+     *
+     * @param c char
+     * @return true for space, tab, dash, dot and parentheses
+     */
+    private static boolean isSeparator(final char c) {
+        return c == ' ' || c == '-' || c == '.' || c == '(' || c == ')' || c == '\t';
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template that only substitutes plain <code>${name}</code> variables, compiled into literal
+ * segments and variable slots.
+ *
+ * <p>{@link #compile(String)} accepts a source only if FreeMarker would copy everything outside
+ * those interpolations verbatim: any directive, macro call, comment, <code>#{...}</code>
+ * interpolation, square bracket syntax or interpolation of anything but a bare name is rejected.
+ * Rendering resolves every slot first and then writes into a buffer of the exact size. A value
+ * that is missing or not a string is left to FreeMarker, which formats it or reports it as
+ * missing, so output and errors stay identical.</p>
+ */
+public final class PlaceholderTemplate {
+
+    /**
+     * Literal text; one more than there are variables.
+     */
+    private final String[] literals;
+
+    /**
+     * Variable names.
+     */
+    private final String[] variables;
+
+    /**
+     * Total length of the literal text.
+     */
+    private final int literalLength;
+
+    /**
+     * PlaceholderTemplate.
+     *
+     * @param literalSegments literal text around the variables
+     * @param variableNames   variable names
+     */
+    private PlaceholderTemplate(final String[] literalSegments, final String[] variableNames) {
+        literals = literalSegments;
+        variables = variableNames;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        literalLength = length;
+    }
+
+    /**
+     * Compiles a template source.
+     *
+     * @param source template source
+     * @return PlaceholderTemplate, or null if the source needs FreeMarker
+     */
+    public static PlaceholderTemplate compile(final String source) {
+        if (source.contains("<#") || source.contains("</#") || source.contains("<@") || source.contains("</@")
+                || source.contains("[#") || source.contains("[@") || source.contains("[=")
+                || source.contains("#{")) {
+            return null;
+        }
+        final List<String> literalSegments = new ArrayList<>();
+        final List<String> variableNames = new ArrayList<>();
+        int start = 0;
+        int open = source.indexOf("${");
+        while (open >= 0) {
+            final int close = source.indexOf('}', open + 2);
+            if (close < 0 || !isName(source, open + 2, close)) {
+                return null;
+            }
+            literalSegments.add(source.substring(start, open));
+            variableNames.add(source.substring(open + 2, close));
+            start = close + 1;
+            open = source.indexOf("${", start);
+        }
+        literalSegments.add(source.substring(start));
+        return new PlaceholderTemplate(
+                literalSegments.toArray(new String[0]),
+                variableNames.toArray(new String[0]));
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param model TemplateHashModel or Map
+     * @return rendered text, or null if the model must be rendered by FreeMarker
+     * @throws TemplateModelException when the model fails to return a value
+     */
+    public String render(final Object model) throws TemplateModelException {
+        final String[] values = new String[variables.length];
+        int length = literalLength;
+        for (int i = 0; i < variables.length; i++) {
+            final String value = resolve(model, variables[i]);
+            if (value == null) {
+                return null;
+            }
+            values[i] = value;
+            length += value.length();
+        }
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]).append(values[i]);
+        }
+        return sb.append(literals[variables.length]).toString();
+    }
+
+    /**
+     * Variable names, in order of appearance.
+     *
+     * @return names
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    /**
+     * Looks up a string value.
+     *
+     * @param model TemplateHashModel or Map
+     * @param name  variable name
+     * @return value, or null if missing or not a string
+     * @throws TemplateModelException when the model fails to return a value
+     */
+    private static String resolve(final Object model, final String name) throws TemplateModelException {
+        if (model instanceof TemplateHashModel) {
+            final TemplateModel value = ((TemplateHashModel) model).get(name);
+            return value instanceof TemplateScalarModel ? ((TemplateScalarModel) value).getAsString() : null;
+        }
+        if (model instanceof Map) {
+            final Object value = ((Map<?, ?>) model).get(name);
+            return value instanceof String ? (String) value : null;
+        }
+        return null;
+    }
+
+    /**
+     * Whether a region is a plain identifier.
+     *
+     * @param source template source
+     * @param start  first char (inclusive)
+     * @param end    last char (exclusive)
+     * @return true for [A-Za-z_][A-Za-z0-9_]*
+     */
+    private static boolean isName(final String source, final int start, final int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            final char c = source.charAt(i);
+            final boolean letter = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+            if (!letter && (i == start || c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded set of recently seen keys, for dropping duplicate deliveries.
+ *
+ * <p>Keys are kept in two generations. New keys go into the current generation; when it is older
+ * than the window, or holds the maximum number of keys, it becomes the previous generation and the
+ * old previous generation is dropped whole. A key is therefore remembered for at least one window
+ * (unless the set overflows) and at most two, and expiry costs nothing per key. Both checks are a
+ * hash lookup, so the set can sit in front of every request.</p>
+ */
+public class RecentKeySet {
+
+    /**
+     * Age at which the current generation is retired.
+     */
+    private final long windowNanos;
+
+    /**
+     * Number of keys at which the current generation is retired early.
+     */
+    private final int maxKeys;
+
+    /**
+     * Current and previous generation.
+     */
+    private final AtomicReference<Generations> generations;
+
+    /**
+     * RecentKeySet.
+     *
+     * @param windowMillis         minimum time a key is remembered
+     * @param maxKeysPerGeneration keys per generation before it is retired early
+     */
+    public RecentKeySet(final long windowMillis, final int maxKeysPerGeneration) {
+        windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        maxKeys = Math.max(1, maxKeysPerGeneration);
+        generations = new AtomicReference<>(new Generations(System.nanoTime(), ConcurrentHashMap.newKeySet(), null));
+    }
+
+    /**
+     * Records a key.
+     *
+     * @param key key
+     * @return true if the key was not seen recently
+     */
+    public boolean add(final String key) {
+        final Generations current = rotateIfDue();
+        if (current.previous != null && current.previous.contains(key)) {
+            return false;
+        }
+        return current.keys.add(key);
+    }
+
+    /**
+     * Forgets a key, e.g. one recorded for a delivery that then failed, so a redelivery of it is
+     * accepted.
+     *
+     * @param key key
+     */
+    public void remove(final String key) {
+        final Generations current = generations.get();
+        current.keys.remove(key);
+        if (current.previous != null) {
+            current.previous.remove(key);
+        }
+    }
+
+    /**
+     * Keys currently remembered.
+     *
+     * @return count
+     */
+    public int size() {
+        final Generations current = generations.get();
+        return current.keys.size() + (current.previous == null ? 0 : current.previous.size());
+    }
+
+    /**
+     * Retires the current generation if it is too old or too full.
+     *
+     * @return generations to use
+     */
+    private Generations rotateIfDue() {
+        final Generations current = generations.get();
+        final long now = System.nanoTime();
+        if (now - current.createdAt < windowNanos && current.keys.size() < maxKeys) {
+            return current;
+        }
+        final Generations next = new Generations(now, ConcurrentHashMap.newKeySet(), current.keys);
+        return generations.compareAndSet(current, next) ? next : generations.get();
+    }
+
+    /**
+     * An immutable pair of generations.
+     */
+    private static final class Generations {
+
+        /**
+         * System.nanoTime() at which the current generation was started.
+         */
+        private final long createdAt;
+
+        /**
+         * Current generation.
+         */
+        private final Set<String> keys;
+
+        /**
+         * Previous generation, or null.
+         */
+        private final Set<String> previous;
+
+        /**
+         * Generations.
+         *
+         * @param startedAt    System.nanoTime() at which the current generation was started
+         * @param currentKeys  current generation
+         * @param previousKeys previous generation
+         */
+        private Generations(final long startedAt, final Set<String> currentKeys, final Set<String> previousKeys) {
+            createdAt = startedAt;
+            keys = currentKeys;
+            previous = previousKeys;
+        }
+
+    }
+
+}
@@ -17,201 +17,165 @@
 package com.starfireaviation.sms.util;
 
 import com.starfireaviation.model.ResponseOption;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.starfireaviation.sms.model.ParsedResponse;
 
 /**
  * SMSResponseParser.
+ *
+ * <p>Replies are classified in a single pass: surrounding whitespace is skipped, the remaining
+ * chars are case-folded while being hashed, and the hash indexes a precomputed table of keywords.
+ * Anything that cannot be a keyword (too long, or containing a non-letter) is rejected during that
+ * pass, so classification costs at most one scan of the body and one keyword comparison. Results
+ * are shared, immutable instances.</p>
  */
-public class ResponseParser {
+public final class ResponseParser {
 
     /**
-     * A_PATTERN.
+     * Twilio's standard opt-out keywords. All of them classify as STOP.
      */
-    public static final Pattern A_PATTERN = Pattern.compile("^(A)$", Pattern.CASE_INSENSITIVE);
+    private static final String[] OPT_OUT_KEYWORDS = {"STOP", "STOPALL", "UNSUBSCRIBE", "CANCEL", "END", "QUIT"};
 
     /**
-     * B_PATTERN.
+     * Twilio's standard opt-in keywords, which lift an earlier opt-out.
      */
-    public static final Pattern B_PATTERN = Pattern.compile("^(B)$", Pattern.CASE_INSENSITIVE);
+    private static final String[] OPT_IN_KEYWORDS = {"START", "UNSTOP"};
 
     /**
-     * C_PATTERN.
+     * Opt-in keywords that are also ordinary words, so they only lift an opt-out for a number
+     * that has opted out.
      */
-    public static final Pattern C_PATTERN = Pattern.compile("^(C)$", Pattern.CASE_INSENSITIVE);
+    private static final String[] CONDITIONAL_OPT_IN_KEYWORDS = {"YES"};
 
     /**
-     * D_PATTERN.
+     * Size of the lookup table (power of two, at least twice the number of keywords).
      */
-    public static final Pattern D_PATTERN = Pattern.compile("^(D)$", Pattern.CASE_INSENSITIVE);
+    private static final int TABLE_SIZE = 64;
 
     /**
-     * STOP_PATTERN.
+     * Open-addressing lookup table indexed by the folded keyword's hash.
      */
-    public static final Pattern STOP_PATTERN = Pattern.compile("^(STOP)$", Pattern.CASE_INSENSITIVE);
+    private static final ParsedResponse[] TABLE = new ParsedResponse[TABLE_SIZE];
 
     /**
-     * SKIP_PATTERN.
+     * Length of the longest keyword.
      */
-    public static final Pattern SKIP_PATTERN = Pattern.compile("^(SKIP)$", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_KEYWORD_LENGTH;
 
-    /**
-     * CONFIRM_PATTERN.
-     */
-    public static final Pattern CONFIRM_PATTERN = Pattern.compile("^(CONFIRM)$", Pattern.CASE_INSENSITIVE);
-
-    /**
-     * DECLINE_PATTERN.
-     */
-    public static final Pattern DECLINE_PATTERN = Pattern.compile("^(DECLINE)$", Pattern.CASE_INSENSITIVE);
-
-    /**
-     * Determines user's response.
-     *
-     * @param message to be evaluated
-     * @return SMSResponseOption
-     */
-    public static ResponseOption determineResponse(final String message) {
-        ResponseOption responseOption = ResponseOption.UNKNOWN;
-        if (isStopResponse(message)) {
-            responseOption = ResponseOption.STOP;
-        } else if (isSkipResponse(message)) {
-            responseOption = ResponseOption.SKIP;
-        } else if (isDeclineResponse(message)) {
-            responseOption = ResponseOption.DECLINE;
-        } else if (isConfirmResponse(message)) {
-            responseOption = ResponseOption.CONFIRM;
-        } else if (isAResponse(message)) {
-            responseOption = ResponseOption.A;
-        } else if (isBResponse(message)) {
-            responseOption = ResponseOption.B;
-        } else if (isCResponse(message)) {
-            responseOption = ResponseOption.C;
-        } else if (isDResponse(message)) {
-            responseOption = ResponseOption.D;
+    static {
+        for (String keyword : OPT_OUT_KEYWORDS) {
+            register(new ParsedResponse(ResponseOption.STOP, keyword, true, false, false));
         }
-        return responseOption;
-    }
-
-    /**
-     * Evaluates user's message to see if it is a STOP message.
-     *
-     * @param message to be evaluated
-     * @return if a STOP message
-     */
-    private static boolean isStopResponse(final String message) {
-        boolean isStop = false;
-        Matcher matcher = STOP_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isStop = true;
+        for (String keyword : OPT_IN_KEYWORDS) {
+            register(new ParsedResponse(ResponseOption.UNKNOWN, keyword, false, true, false));
         }
-        return isStop;
-    }
-
-    /**
-     * Evaluates user's message to see if it is a SKIP message.
-     *
-     * @param message to be evaluated
-     * @return if a SKIP message
-     */
-    private static boolean isSkipResponse(final String message) {
-        boolean isSkip = false;
-        Matcher matcher = SKIP_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isSkip = true;
+        for (String keyword : CONDITIONAL_OPT_IN_KEYWORDS) {
+            register(new ParsedResponse(ResponseOption.UNKNOWN, keyword, false, true, true));
         }
-        return isSkip;
-    }
-
-    /**
-     * Evaluates user's message to see if it is a CONFIRM message.
-     *
-     * @param message to be evaluated
-     * @return if a CONFIRM message
-     */
-    private static boolean isConfirmResponse(final String message) {
-        boolean isConfirm = false;
-        Matcher matcher = CONFIRM_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isConfirm = true;
+        for (ResponseOption option : new ResponseOption[] {
+                ResponseOption.SKIP,
+                ResponseOption.DECLINE,
+                ResponseOption.CONFIRM,
+                ResponseOption.A,
+                ResponseOption.B,
+                ResponseOption.C,
+                ResponseOption.D}) {
+            register(new ParsedResponse(option, option.name(), false, false, false));
+        }
+        int longest = 0;
+        for (ParsedResponse response : TABLE) {
+            if (response != null) {
+                longest = Math.max(longest, response.getKeyword().length());
+            }
         }
-        return isConfirm;
+        MAX_KEYWORD_LENGTH = longest;
     }
 
     /**
-     * Evaluates user's message to see if it is a DECLINE message.
-     *
-     * @param message to be evaluated
-     * @return if a DECLINE message
+     * Utility class.
      */
-    private static boolean isDeclineResponse(final String message) {
-        boolean isDecline = false;
-        Matcher matcher = DECLINE_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isDecline = true;
-        }
-        return isDecline;
+    private ResponseParser() {
     }
 
     /**
-     * Evaluates user's message to see if it is a A message.
+     * Classifies a user's reply.
      *
-     * @param message to be evaluated
-     * @return if a A message
+     * @param message to be evaluated, may be null
+     * @return ParsedResponse, ParsedResponse.UNKNOWN if the reply is not a keyword
      */
-    private static boolean isAResponse(final String message) {
-        boolean isA = false;
-        Matcher matcher = A_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isA = true;
+    public static ParsedResponse classify(final String message) {
+        if (message == null) {
+            return ParsedResponse.UNKNOWN;
         }
-        return isA;
+        int start = 0;
+        int end = message.length();
+        while (start < end && message.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && message.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        final int length = end - start;
+        if (length == 0 || length > MAX_KEYWORD_LENGTH) {
+            return ParsedResponse.UNKNOWN;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            final char c = fold(message.charAt(i));
+            if (c == 0) {
+                return ParsedResponse.UNKNOWN;
+            }
+            hash = 31 * hash + c;
+        }
+        int index = hash & (TABLE_SIZE - 1);
+        ParsedResponse response = TABLE[index];
+        while (response != null) {
+            final String keyword = response.getKeyword();
+            if (keyword.length() == length && message.regionMatches(true, start, keyword, 0, length)) {
+                return response;
+            }
+            index = (index + 1) & (TABLE_SIZE - 1);
+            response = TABLE[index];
+        }
+        return ParsedResponse.UNKNOWN;
     }
 
     /**
-     * Evaluates user's message to see if it is a B message.
+     * Determines user's response.
      *
      * @param message to be evaluated
-     * @return if a B message
+     * @return SMSResponseOption
      */
-    private static boolean isBResponse(final String message) {
-        boolean isB = false;
-        Matcher matcher = B_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isB = true;
-        }
-        return isB;
+    public static ResponseOption determineResponse(final String message) {
+        return classify(message).getOption();
     }
 
     /**
-     * Evaluates user's message to see if it is a C message.
+     * Upper-cases an ASCII letter.
      *
-     * @param message to be evaluated
-     * @return if a C message
+     * @param c char
+     * @return upper-case letter, or 0 if c is not an ASCII letter
      */
-    private static boolean isCResponse(final String message) {
-        boolean isC = false;
-        Matcher matcher = C_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isC = true;
+    private static char fold(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return (char) (c - ('a' - 'A'));
         }
-        return isC;
+        return 0;
     }
 
     /**
-     * Evaluates user's message to see if it is a D message.
+     * Adds a keyword to the lookup table.
      *
-     * @param message to be evaluated
-     * @return if a D message
+     * @param response ParsedResponse
      */
-    private static boolean isDResponse(final String message) {
-        boolean isD = false;
-        Matcher matcher = D_PATTERN.matcher(message);
-        if (matcher.find()) {
-            isD = true;
+    private static void register(final ParsedResponse response) {
+        int index = response.getKeyword().hashCode() & (TABLE_SIZE - 1);
+        while (TABLE[index] != null) {
+            index = (index + 1) & (TABLE_SIZE - 1);
         }
-        return isD;
+        TABLE[index] = response;
     }
 
 }
@@ -0,0 +1,183 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free, multi-producer/multi-consumer ring buffer.
+ *
+ * <p>Each slot carries a sequence number which tells producers and consumers whether the slot is
+ * free for the current lap of the ring. Claiming a slot is a single CAS on the producer (or
+ * consumer) cursor; publication happens through the volatile write of the slot sequence.</p>
+ *
+ * @param <E> element type
+ */
+public class RingBuffer<E> {
+
+    /**
+     * Index mask (capacity - 1).
+     */
+    private final int mask;
+
+    /**
+     * Elements. Visibility is provided by the sequence writes/reads that bracket every access.
+     */
+    private final Object[] elements;
+
+    /**
+     * Per-slot sequence numbers.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Next position to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to be claimed by a consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * RingBuffer.
+     *
+     * @param requestedCapacity minimum capacity, rounded up to the next power of two
+     */
+    public RingBuffer(final int requestedCapacity) {
+        if (requestedCapacity < 1 || requestedCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + requestedCapacity);
+        }
+        final int capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        mask = capacity - 1;
+        elements = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element if there is room for it.
+     *
+     * @param element to be added
+     * @return false if the buffer is full
+     */
+    public boolean offer(final E element) {
+        Objects.requireNonNull(element);
+        long position = tail.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long delta = sequences.get(index) - position;
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (delta < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next element.
+     *
+     * @return element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long delta = sequences.get(index) - (position + 1);
+            if (delta == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final E element = (E) elements[index];
+                    elements[index] = null;
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (delta < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to <code>limit</code> elements into the target collection.
+     *
+     * @param target collection
+     * @param limit  maximum number of elements to move
+     * @return number of elements moved
+     */
+    public int drainTo(final Collection<? super E> target, final int limit) {
+        int count = 0;
+        while (count < limit) {
+            final E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Approximate number of elements currently held.
+     *
+     * @return size
+     */
+    public int size() {
+        final long size = tail.get() - head.get();
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity());
+    }
+
+    /**
+     * Whether the buffer currently appears empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Capacity.
+     *
+     * @return capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.sms.model.EncodedMessage;
+
+import java.text.Normalizer;
+
+/**
+ * SMS encoding and segment arithmetic.
+ *
+ * <p>A body is sent as GSM-7 when every character is in the GSM 03.38 default alphabet or its
+ * extension table (which costs two septets), and as UCS-2 otherwise. A single character outside
+ * the alphabet therefore more than halves the room per segment. Segments are counted the way
+ * the carrier splits them: an escaped GSM-7 character or a UTF-16 surrogate pair is never split
+ * across two parts.</p>
+ */
+public final class SmsEncoding {
+
+    /**
+     * Septets in a single GSM-7 segment.
+     */
+    private static final int GSM_7_SINGLE = 160;
+
+    /**
+     * Septets per part of a split GSM-7 message.
+     */
+    private static final int GSM_7_PART = 153;
+
+    /**
+     * Code units in a single UCS-2 segment.
+     */
+    private static final int UCS_2_SINGLE = 70;
+
+    /**
+     * Code units per part of a split UCS-2 message.
+     */
+    private static final int UCS_2_PART = 67;
+
+    /**
+     * Characters of the default alphabet outside ASCII.
+     */
+    private static final String GSM_7_BASIC_EXTRA =
+            "\u00A3\u00A5\u00E8\u00E9\u00F9\u00EC\u00F2\u00C7\u00D8\u00F8"
+            + "\u00C5\u00E5\u0394\u03A6\u0393\u039B\u03A9\u03A0\u03A8\u03A3"
+            + "\u0398\u039E\u00C6\u00E6\u00DF\u00C9\u00A4\u00A1\u00C4\u00D6"
+            + "\u00D1\u00DC\u00A7\u00BF\u00E4\u00F6\u00F1\u00FC\u00E0";
+
+    /**
+     * Characters of the extension table, sent as escape plus character.
+     */
+    private static final String GSM_7_EXTENSION = "\f^{}\\[~]|\u20AC";
+
+    /**
+     * Septets per ASCII character: 1 or 2, or 0 if not in the alphabet.
+     */
+    private static final byte[] ASCII_SEPTETS = new byte[128];
+
+    static {
+        ASCII_SEPTETS['\n'] = 1;
+        ASCII_SEPTETS['\r'] = 1;
+        for (char c = ' '; c < 127; c++) {
+            ASCII_SEPTETS[c] = 1;
+        }
+        ASCII_SEPTETS['`'] = 0;
+        for (int i = 0; i < GSM_7_EXTENSION.length(); i++) {
+            final char c = GSM_7_EXTENSION.charAt(i);
+            if (c < 128) {
+                ASCII_SEPTETS[c] = 2;
+            }
+        }
+    }
+
+    /**
+     * Utility class.
+     */
+    private SmsEncoding() {
+    }
+
+    /**
+     * Determines the encoding and segment count of a body.
+     *
+     * @param text body
+     * @return EncodedMessage
+     */
+    public static EncodedMessage encode(final String text) {
+        int septets = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final int cost = septets(text.charAt(i));
+            if (cost == 0) {
+                return new EncodedMessage(
+                        text, EncodedMessage.Encoding.UCS_2, text.length(), ucs2Segments(text));
+            }
+            septets += cost;
+        }
+        return new EncodedMessage(text, EncodedMessage.Encoding.GSM_7, septets, gsm7Segments(text, septets));
+    }
+
+    /**
+     * Replaces characters outside the GSM-7 alphabet with close equivalents: typographic quotes,
+     * dashes and ellipses, tabs and other spaces, and accented letters that lose their accent.
+     * Characters without an equivalent are kept.
+     *
+     * @param text body
+     * @return transliterated body, or the body itself if nothing was replaced
+     */
+    public static String transliterate(final String text) {
+        int i = 0;
+        while (i < text.length() && septets(text.charAt(i)) > 0) {
+            i++;
+        }
+        if (i == text.length()) {
+            return text;
+        }
+        final StringBuilder sb = new StringBuilder(text.length());
+        sb.append(text, 0, i);
+        for (; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (septets(c) > 0) {
+                sb.append(c);
+            } else {
+                sb.append(replacement(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Septets a character costs in GSM-7.
+     *
+     * @param c character
+     * @return 1 or 2, or 0 if the character is not in the alphabet
+     */
+    public static int septets(final char c) {
+        if (c < 128) {
+            return ASCII_SEPTETS[c];
+        }
+        if (GSM_7_BASIC_EXTRA.indexOf(c) >= 0) {
+            return 1;
+        }
+        return c == '\u20AC' ? 2 : 0;
+    }
+
+    /**
+     * GSM-7 equivalent of a character outside the alphabet.
+     *
+     * @param c character
+     * @return replacement, or the character itself if there is none
+     */
+    private static String replacement(final char c) {
+        switch (c) {
+            case '\t':
+            case '\u00A0':
+            case '\u2002':
+            case '\u2003':
+            case '\u2009':
+            case '\u202F':
+                return " ";
+            case '`':
+            case '\u00B4':
+            case '\u2018':
+            case '\u2019':
+            case '\u201A':
+            case '\u201B':
+            case '\u2032':
+                return "'";
+            case '\u00AB':
+            case '\u00BB':
+            case '\u201C':
+            case '\u201D':
+            case '\u201E':
+            case '\u201F':
+            case '\u2033':
+                return "\"";
+            case '\u2010':
+            case '\u2011':
+            case '\u2012':
+            case '\u2013':
+            case '\u2014':
+            case '\u2015':
+            case '\u2212':
+            case '\u2022':
+                return "-";
+            case '\u2026':
+                return "...";
+            case '\u200B':
+            case '\u200D':
+            case '\uFEFF':
+                return "";
+            default:
+                final String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                final char base = decomposed.charAt(0);
+                return decomposed.length() > 1 && septets(base) == 1 ? String.valueOf(base) : String.valueOf(c);
+        }
+    }
+
+    /**
+     * Segments of a GSM-7 body.
+     *
+     * @param text    body
+     * @param septets total septets
+     * @return segments
+     */
+    private static int gsm7Segments(final String text, final int septets) {
+        if (septets <= GSM_7_SINGLE) {
+            return 1;
+        }
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final int cost = septets(text.charAt(i));
+            if (used + cost > GSM_7_PART) {
+                segments++;
+                used = 0;
+            }
+            used += cost;
+        }
+        return segments;
+    }
+
+    /**
+     * Segments of a UCS-2 body.
+     *
+     * @param text body
+     * @return segments
+     */
+    private static int ucs2Segments(final String text) {
+        if (text.length() <= UCS_2_SINGLE) {
+            return 1;
+        }
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final int cost = Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length() ? 2 : 1;
+            if (used + cost > UCS_2_PART) {
+                segments++;
+                used = 0;
+            }
+            used += cost;
+            i += cost - 1;
+        }
+        return segments;
+    }
+
+}
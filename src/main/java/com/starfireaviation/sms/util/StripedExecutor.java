@@ -0,0 +1,211 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.sms.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that keeps the tasks of one key in order.
+ *
+ * <p>Each key (a {@link PhoneNumbers} key) is hashed onto one of a fixed number of stripes, and each stripe
+ * is a bounded queue drained by its own thread. Tasks for one key therefore run one at a time in
+ * submission order, while keys on different stripes run in parallel; stripes share no lock.
+ * When a stripe's queue is full the caller blocks until there is room, since running the task on
+ * the caller's thread would overtake the tasks already queued for that key. After shutdown,
+ * tasks run on the caller's thread.</p>
+ */
+@Slf4j
+public class StripedExecutor {
+
+    /**
+     * How often an idle stripe thread checks whether it should stop.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Queues, by stripe.
+     */
+    private final BlockingQueue<Runnable>[] queues;
+
+    /**
+     * Threads, by stripe.
+     */
+    private final Thread[] threads;
+
+    /**
+     * Running flag.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * StripedExecutor.
+     *
+     * @param name              thread name prefix
+     * @param stripes           number of stripes
+     * @param capacityPerStripe capacity of each stripe's queue
+     */
+    @SuppressWarnings("unchecked")
+    public StripedExecutor(final String name, final int stripes, final int capacityPerStripe) {
+        queues = new BlockingQueue[Math.max(1, stripes)];
+        threads = new Thread[queues.length];
+        for (int i = 0; i < queues.length; i++) {
+            final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(1, capacityPerStripe));
+            queues[i] = queue;
+            threads[i] = new Thread(() -> drain(queue), name + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Stripe a key maps to.
+     *
+     * @param key     key
+     * @param stripes number of stripes
+     * @return stripe index
+     */
+    public static int stripe(final long key, final int stripes) {
+        final long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) ((hash >>> 32) % stripes);
+    }
+
+    /**
+     * Queues a task behind the earlier tasks for its key, blocking while the stripe is full.
+     *
+     * @param key  key, e.g. phone number
+     * @param task task
+     */
+    public void execute(final long key, final Runnable task) {
+        if (!running) {
+            run(task);
+            return;
+        }
+        final BlockingQueue<Runnable> queue = queues[stripe(key, queues.length)];
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run(task);
+            return;
+        }
+        if (!running && queue.remove(task)) {
+            run(task);
+        }
+    }
+
+    /**
+     * Number of stripes.
+     *
+     * @return stripes
+     */
+    public int getStripes() {
+        return queues.length;
+    }
+
+    /**
+     * Tasks waiting on a stripe.
+     *
+     * @param stripe stripe index
+     * @return queue depth
+     */
+    public int getQueueDepth(final int stripe) {
+        return queues[stripe].size();
+    }
+
+    /**
+     * Tasks waiting on all stripes.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Runnable> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Oldest task waiting on a stripe.
+     *
+     * @param stripe stripe index
+     * @return task, or null if the stripe is empty
+     */
+    public Runnable peek(final int stripe) {
+        return queues[stripe].peek();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones to run.
+     *
+     * @param timeout how long to wait
+     * @param unit    unit of timeout
+     * @return true if all queued tasks ran
+     */
+    public boolean shutdown(final long timeout, final TimeUnit unit) {
+        running = false;
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (Thread thread : threads) {
+                final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) {
+                    thread.join(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return getQueueDepth() == 0;
+    }
+
+    /**
+     * Stripe thread loop: runs queued tasks until stopped and drained.
+     *
+     * @param queue stripe queue
+     */
+    private void drain(final BlockingQueue<Runnable> queue) {
+        while (running || !queue.isEmpty()) {
+            try {
+                final Runnable task = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    run(task);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs a task, logging instead of propagating its failure.
+     *
+     * @param task task
+     */
+    private static void run(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+}
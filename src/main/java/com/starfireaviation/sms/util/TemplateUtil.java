@@ -17,21 +17,16 @@
 package com.starfireaviation.sms.util;
 
 import com.starfireaviation.model.Address;
-import com.starfireaviation.model.Answer;
 import com.starfireaviation.model.Event;
 import com.starfireaviation.model.Question;
-import com.starfireaviation.model.ReferenceMaterial;
 import com.starfireaviation.model.User;
 import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.EventFragment;
+import com.starfireaviation.sms.model.MessageModel;
 
-import java.text.SimpleDateFormat;
-import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * TemplateUtil.
@@ -50,9 +45,9 @@ public class TemplateUtil {
     private static final ZoneId ET_ZONE_ID = ZoneId.of("America/New_York");
 
     /**
-     * SimpleDateFormat - Day of Week.
+     * DateTimeFormatter - Day of Week.
      */
-    private static final SimpleDateFormat DAY_OF_WEEK = new SimpleDateFormat("EEEE");
+    private static final DateTimeFormatter DAY_OF_WEEK = DateTimeFormatter.ofPattern("EEEE");
 
     /**
      * Builds model for use in templates.
@@ -63,122 +58,70 @@ public class TemplateUtil {
      * @param applicationProperties ApplicationProperties
      * @return model
      */
-    public static Map<String, Object> getModel(
+    public static MessageModel getModel(
             final User user,
             final Event event,
             final Question question,
             final ApplicationProperties applicationProperties) {
-        Map<String, Object> model = new HashMap<>();
-        // TODO property file this value
-        model.put("groundSchoolLink", "https://groundschool.starfireaviation.com");
-        model.put("groundSchoolPasswordResetLink", "");
-        buildUserModel(user, model);
-        buildEventModel(event, model);
-        buildQuestionModel(question, model);
-        return model;
+        return new MessageModel(
+                user,
+                event != null ? buildEventFragment(event, 0L) : EventFragment.EMPTY,
+                question);
     }
 
     /**
-     * Builds Question portions of model for use in templates.
+     * Builds model for use in event templates from a pre-rendered event fragment.
      *
-     * @param question Question
-     * @param model    Map
+     * @param user                  User
+     * @param eventFragment         EventFragment
+     * @param applicationProperties ApplicationProperties
+     * @return model
      */
-    private static void buildQuestionModel(final Question question, final Map<String, Object> model) {
-        if (question != null) {
-            model.put("questionUnit", question.getUnit());
-            model.put("questionSubUnit", question.getSubUnit());
-            model.put("questionLearningStatementCode", question.getLearningStatementCode());
-            model.put("questionText", question.getText());
-            model.put("callbackId", "question");
-            final List<ReferenceMaterial> referenceMaterials = question.getReferenceMaterials();
-            if (referenceMaterials != null && referenceMaterials.size() > 0) {
-                StringBuilder sb = new StringBuilder("Reference Material: ");
-                for (ReferenceMaterial referenceMaterial : referenceMaterials) {
-                    sb.append("<").append(referenceMaterial.getResourceLocation()).append(">\n");
-                }
-                model.put("referenceMaterial", sb.toString());
-            }
-            int count = 1;
-            if (question.getAnswers() != null) {
-                for (Answer answer : question.getAnswers()) {
-                    model.put("answerChoice" + count, answer.getChoice());
-                    model.put("answerText" + count, answer.getText());
-                    count++;
-                }
-            }
-        }
+    public static MessageModel getModel(
+            final User user,
+            final EventFragment eventFragment,
+            final ApplicationProperties applicationProperties) {
+        return new MessageModel(user, eventFragment, null);
     }
 
     /**
-     * Builds Event portions of model for use in templates.
+     * Renders the event portion of the model. The start time is an Eastern wall-clock time, so
+     * the Time line and the day of week are both formatted from it in ET_ZONE_ID.
      *
-     * @param event Event
-     * @param model Map
+     * @param event   Event
+     * @param version version of the event
+     * @return EventFragment
      */
-    private static void buildEventModel(final Event event, final Map<String, Object> model) {
-        if (event != null) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(event.getTitle());
-            sb.append("\n\n");
-            sb.append("Time: ");
-            sb.append(DATE_TIME_FORMATTER.format(event.getStartTime().atZone(ET_ZONE_ID)));
-            sb.append("\n");
-            Address address = event.getAddress();
-            if (address != null) {
-                sb.append("Address: \n");
-                if (address.getAddressLine1() != null) {
-                    sb.append("\t");
-                    sb.append(address.getAddressLine1());
-                    sb.append("\n");
-                }
-                if (address.getAddressLine2() != null) {
-                    sb.append("\t");
-                    sb.append(address.getAddressLine2());
-                    sb.append("\n");
-                }
+    public static EventFragment buildEventFragment(final Event event, final long version) {
+        final ZonedDateTime startTime = event.getStartTime().atZone(ET_ZONE_ID);
+        StringBuilder sb = new StringBuilder();
+        sb.append(event.getTitle());
+        sb.append("\n\n");
+        sb.append("Time: ");
+        sb.append(DATE_TIME_FORMATTER.format(startTime));
+        sb.append("\n");
+        Address address = event.getAddress();
+        if (address != null) {
+            sb.append("Address: \n");
+            if (address.getAddressLine1() != null) {
                 sb.append("\t");
-                sb.append(address.getCity());
-                sb.append(", ");
-                sb.append(address.getState());
-                sb.append(" ");
-                sb.append(address.getZipCode());
+                sb.append(address.getAddressLine1());
+                sb.append("\n");
             }
-            model.put("event", sb.toString());
-            model.put("eventtitle", event.getTitle());
-            model.put(
-                    "dayofweek",
-                    DAY_OF_WEEK.format(
-                            Date.from(
-                                    event.getStartTime().toInstant(
-                                            OffsetDateTime.now(ZoneId.of("America/New_York")).getOffset()))));
-        } else {
-            model.put("event", "");
-            model.put("eventtitle", "");
-            model.put("dayofweek", "");
-        }
-    }
-
-    /**
-     * Builds User portions of model for use in templates.
-     *
-     * @param user  User
-     * @param model Map
-     */
-    private static void buildUserModel(final User user, final Map<String, Object> model) {
-        if (user != null) {
-            model.put("firstName", user.getFirstName());
-            model.put("lastName", user.getLastName());
-            model.put("userId", user.getId());
-            model.put("code", user.getCode());
-            model.put("certificateNumber", user.getCertificateNumber());
-        } else {
-            model.put("firstName", "");
-            model.put("lastName", "");
-            model.put("userId", "");
-            model.put("code", "");
-            model.put("certificateNumber", "");
+            if (address.getAddressLine2() != null) {
+                sb.append("\t");
+                sb.append(address.getAddressLine2());
+                sb.append("\n");
+            }
+            sb.append("\t");
+            sb.append(address.getCity());
+            sb.append(", ");
+            sb.append(address.getState());
+            sb.append(" ");
+            sb.append(address.getZipCode());
         }
+        return new EventFragment(
+                version, sb.toString(), event.getTitle(), DAY_OF_WEEK.format(startTime));
     }
 
 }
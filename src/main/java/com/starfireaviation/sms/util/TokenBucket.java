@@ -0,0 +1,125 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.sms.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket.
+ *
+ * <p>Implemented as a generic cell rate algorithm: the bucket only stores the theoretical arrival
+ * time of the next token, so taking a token is one CAS and no background refill is needed.
+ * Callers reserve a token and are told how long to wait for it, which spaces consecutive sends
+ * exactly one emission interval apart once the burst allowance is used up.</p>
+ */
+public class TokenBucket {
+
+    /**
+     * Nanoseconds between tokens.
+     */
+    private final long intervalNanos;
+
+    /**
+     * How far ahead of schedule a caller may go (burst - 1 intervals).
+     */
+    private final long toleranceNanos;
+
+    /**
+     * Nanosecond clock the schedule is kept in.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Theoretical arrival time of the next token, in clock time.
+     */
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * TokenBucket.
+     *
+     * @param permitsPerSecond sustained rate
+     * @param burst            number of tokens that may be taken back-to-back
+     */
+    public TokenBucket(final double permitsPerSecond, final int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * TokenBucket.
+     *
+     * @param permitsPerSecond sustained rate
+     * @param burst            number of tokens that may be taken back-to-back
+     * @param nanoClock        nanosecond clock, System::nanoTime outside tests
+     */
+    public TokenBucket(final double permitsPerSecond, final int burst, final LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid token bucket rate [%s] or burst [%s]", permitsPerSecond, burst));
+        }
+        intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        toleranceNanos = intervalNanos * (burst - 1);
+        clock = nanoClock;
+        theoreticalArrival = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Reserves the next token.
+     *
+     * @return nanoseconds the caller must wait before using the token
+     */
+    public long reserve() {
+        final long now = clock.getAsLong();
+        while (true) {
+            final long arrival = theoreticalArrival.get();
+            final long start = arrival - now > 0 ? arrival : now;
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return Math.max(0L, arrival - toleranceNanos - now);
+            }
+        }
+    }
+
+    /**
+     * Takes a token, parking the calling thread until it is due.
+     *
+     * @return nanoseconds spent waiting
+     */
+    public long acquire() {
+        final long wait = reserve();
+        if (wait > 0) {
+            final long deadline = System.nanoTime() + wait;
+            long remaining = wait;
+            while (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Nanoseconds between tokens.
+     *
+     * @return interval
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+}
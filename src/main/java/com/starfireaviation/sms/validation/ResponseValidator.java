@@ -17,6 +17,7 @@
 package com.starfireaviation.sms.validation;
 
 import com.starfireaviation.sms.exception.InvalidPayloadException;
+import com.starfireaviation.sms.model.ParsedResponse;
 import com.starfireaviation.sms.util.ResponseParser;
 
 /**
@@ -28,22 +29,15 @@ public class ResponseValidator {
      * Response Validation.
      *
      * @param message String
+     * @return ParsedResponse, for reuse by processing
      * @throws InvalidPayloadException when response is not valid
      */
-    public static void validate(final String message) throws InvalidPayloadException {
-        switch (ResponseParser.determineResponse(message)) {
-            case A:
-            case B:
-            case C:
-            case D:
-            case CONFIRM:
-            case DECLINE:
-            case SKIP:
-            case STOP:
-                return;
-            default:
-                throw new InvalidPayloadException();
+    public static ParsedResponse validate(final String message) throws InvalidPayloadException {
+        final ParsedResponse response = ResponseParser.classify(message);
+        if (!response.isValid()) {
+            throw new InvalidPayloadException();
         }
+        return response;
     }
 
 }
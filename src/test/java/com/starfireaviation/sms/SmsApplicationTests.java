@@ -3,7 +3,7 @@ package com.starfireaviation.sms;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "sms.opt-out.file=target/opt-outs.dat")
 class SmsApplicationTests {
 
 	@Test
@@ -0,0 +1,88 @@
+package com.starfireaviation.sms.config;
+
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TwilioClientConfigTest {
+
+	private final TwilioClientConfig config = new TwilioClientConfig();
+
+	private final ApplicationProperties aProps = new ApplicationProperties();
+
+	private PoolingHttpClientConnectionManager connectionManager;
+
+	@AfterEach
+	void tearDown() {
+		if (connectionManager != null) {
+			connectionManager.shutdown();
+		}
+	}
+
+	private static Object field(final Object target, final String name) throws ReflectiveOperationException {
+		final Field field = target.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(target);
+	}
+
+	@Test
+	void appliesPoolLimits() {
+		aProps.getTwilio().setMaxConnections(20);
+		aProps.getTwilio().setMaxConnectionsPerRoute(10);
+		aProps.getTwilio().setValidateAfterInactivity(1500);
+		connectionManager = config.twilioConnectionManager(aProps);
+
+		assertEquals(20, connectionManager.getMaxTotal());
+		assertEquals(10, connectionManager.getDefaultMaxPerRoute());
+		assertEquals(1500, connectionManager.getValidateAfterInactivity());
+	}
+
+	@Test
+	void appliesTimeoutsAndSharedPoolToClient() throws ReflectiveOperationException {
+		aProps.setAccountSid("AC00000000000000000000000000000000");
+		aProps.setAuthId("token");
+		aProps.getTwilio().setConnectTimeout(1000);
+		aProps.getTwilio().setSocketTimeout(2000);
+		aProps.getTwilio().setConnectionRequestTimeout(3000);
+		connectionManager = config.twilioConnectionManager(aProps);
+		final TwilioRestClient restClient = config.twilioRestClient(aProps, connectionManager);
+
+		assertTrue(restClient.getHttpClient() instanceof NetworkHttpClient);
+		final Object httpClient = field(restClient.getHttpClient(), "client");
+		final RequestConfig requestConfig = ((Configurable) httpClient).getConfig();
+		assertEquals(1000, requestConfig.getConnectTimeout());
+		assertEquals(2000, requestConfig.getSocketTimeout());
+		assertEquals(3000, requestConfig.getConnectionRequestTimeout());
+		assertSame(connectionManager, field(httpClient, "connManager"));
+	}
+
+	@Test
+	void tunesAPrivateTlsContext() throws Exception {
+		final SSLContext systemDefault = SSLContext.getDefault();
+		final int defaultCacheSize = systemDefault.getClientSessionContext().getSessionCacheSize();
+		final int defaultTimeout = systemDefault.getClientSessionContext().getSessionTimeout();
+		aProps.getTwilio().setTlsSessionCacheSize(defaultCacheSize + 7);
+		aProps.getTwilio().setTlsSessionTimeout(60000);
+
+		final SSLContext sslContext = TwilioClientConfig.sslContext(aProps.getTwilio());
+
+		assertNotSame(systemDefault, sslContext);
+		assertEquals(defaultCacheSize + 7, sslContext.getClientSessionContext().getSessionCacheSize());
+		assertEquals(60, sslContext.getClientSessionContext().getSessionTimeout());
+		assertEquals(defaultCacheSize, systemDefault.getClientSessionContext().getSessionCacheSize());
+		assertEquals(defaultTimeout, systemDefault.getClientSessionContext().getSessionTimeout());
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.starfireaviation.sms.config;
+
+import com.starfireaviation.sms.util.BoundedExecutor;
+import com.starfireaviation.sms.util.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebServerConfigTest {
+
+	private final WebServerConfig config = new WebServerConfig();
+
+	private final ApplicationProperties aProps = new ApplicationProperties();
+
+	private ProtocolHandler customize() {
+		final Http11NioProtocol protocolHandler = new Http11NioProtocol();
+		config.virtualThreadCustomizer(aProps).customize(protocolHandler);
+		return protocolHandler;
+	}
+
+	@Test
+	void keepsTomcatExecutorWhenDisabled() {
+		assertNull(customize().getExecutor());
+	}
+
+	@Test
+	void boundsWebhookExecutorAndShutsItDown() {
+		aProps.getInbound().setVirtualThreads(true);
+		aProps.getInbound().setMaxConcurrentRequests(4);
+		final ProtocolHandler protocolHandler = customize();
+
+		if (!VirtualThreads.isSupported()) {
+			assertNull(protocolHandler.getExecutor());
+			config.destroy();
+			return;
+		}
+		assertTrue(protocolHandler.getExecutor() instanceof BoundedExecutor);
+		final BoundedExecutor executor = (BoundedExecutor) protocolHandler.getExecutor();
+		config.destroy();
+		assertThrows(RuntimeException.class, () -> executor.execute(() -> { }));
+	}
+
+}
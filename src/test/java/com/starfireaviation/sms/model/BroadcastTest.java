@@ -0,0 +1,74 @@
+package com.starfireaviation.sms.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BroadcastTest {
+
+	@Test
+	void countsProgressAndKeepsOutcomesInRecipientOrder() {
+		final Broadcast broadcast = new Broadcast(MessageTemplate.GS_EVENT_UPCOMING, 4);
+		assertEquals(4, broadcast.getTotal());
+		assertEquals(List.of(RecipientOutcome.Status.PENDING, RecipientOutcome.Status.PENDING,
+				RecipientOutcome.Status.PENDING, RecipientOutcome.Status.PENDING), statuses(broadcast));
+
+		broadcast.recordQueued(0, "+15125550101");
+		broadcast.recordQueued(1, "+15125550102");
+		broadcast.recordQueued(2, "+15125550103");
+		broadcast.recordSkipped(3, "+15125550104");
+		assertEquals(3, broadcast.getQueued());
+		assertFalse(broadcast.isDone());
+
+		broadcast.recordSent(1, "+15125550102", "SM2");
+		broadcast.recordFailed(0, "+15125550101", "The 'To' number is not a valid phone number.");
+		assertEquals(1, broadcast.getSent());
+		assertEquals(1, broadcast.getFailed());
+		assertFalse(broadcast.isDone());
+		assertEquals(List.of(RecipientOutcome.Status.FAILED, RecipientOutcome.Status.SENT,
+				RecipientOutcome.Status.QUEUED, RecipientOutcome.Status.SKIPPED), statuses(broadcast));
+
+		final RecipientOutcome sent = broadcast.getOutcomes().get(1);
+		assertEquals("+15125550102", sent.getTo());
+		assertEquals("SM2", sent.getSid());
+		assertNull(sent.getError());
+		final RecipientOutcome failed = broadcast.getOutcomes().get(0);
+		assertNull(failed.getSid());
+		assertEquals("The 'To' number is not a valid phone number.", failed.getError());
+	}
+
+	@Test
+	void completesOnceEveryRecipientIsFinalEvenWhenSomeFail() {
+		final Broadcast broadcast = new Broadcast(MessageTemplate.GS_EVENT_UPCOMING, 3);
+		broadcast.recordFailed(0, "+15125550101", "render failed");
+		broadcast.recordFailed(1, "+15125550102", "send failed");
+		assertFalse(broadcast.getCompletion().isDone());
+
+		broadcast.recordSent(2, "+15125550103", "SM3");
+		assertTrue(broadcast.isDone());
+		assertSame(broadcast, broadcast.getCompletion().join());
+		assertFalse(broadcast.getCompletion().isCompletedExceptionally());
+		assertEquals(2, broadcast.getFailed());
+		assertEquals(1, broadcast.getSent());
+	}
+
+	@Test
+	void completesImmediatelyWithoutRecipients() {
+		final Broadcast broadcast = new Broadcast(MessageTemplate.GS_EVENT_UPCOMING, 0);
+
+		assertTrue(broadcast.isDone());
+		assertTrue(broadcast.getOutcomes().isEmpty());
+	}
+
+	private static List<RecipientOutcome.Status> statuses(final Broadcast broadcast) {
+		return broadcast.getOutcomes().stream().map(RecipientOutcome::getStatus).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.starfireaviation.sms.model;
+
+import com.starfireaviation.model.Answer;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.User;
+import freemarker.core.InvalidReferenceException;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageModelTest {
+
+	private final Configuration config = new Configuration(Configuration.VERSION_2_3_31);
+
+	private String render(final String source, final MessageModel model) throws Exception {
+		final StringWriter writer = new StringWriter();
+		new Template("test", new StringReader(source), config).process(model, writer);
+		return writer.toString();
+	}
+
+	private static User user() {
+		final User user = new User();
+		user.setId(7L);
+		user.setFirstName("Amelia");
+		user.setLastName("Earhart");
+		return user;
+	}
+
+	private static Answer answer(final String choice, final String text) {
+		final Answer answer = new Answer();
+		answer.setChoice(choice);
+		answer.setText(text);
+		return answer;
+	}
+
+	@Test
+	void rendersUserAndEvent() throws Exception {
+		final EventFragment fragment = new EventFragment(1L, "Ground School\n\nTime: now", "Ground School", "Friday");
+		final MessageModel model = new MessageModel(user(), fragment, null);
+
+		assertEquals("Amelia Earhart 7 Friday Ground School",
+				render("${firstName} ${lastName} ${userId} ${dayofweek} ${eventtitle}", model));
+	}
+
+	@Test
+	void rendersAnswersByNumber() throws Exception {
+		final Question question = new Question();
+		question.setText("Which?");
+		question.setAnswers(Arrays.asList(answer("A", "One"), answer("B", "Two")));
+		final MessageModel model = new MessageModel(user(), EventFragment.EMPTY, question);
+
+		assertEquals("Which? A: One, B: Two",
+				render("${questionText} ${answerChoice1}: ${answerText1}, ${answerChoice2}: ${answerText2}", model));
+		assertEquals("none", render("${answerChoice3!'none'}${answerText01!''}", model));
+	}
+
+	@Test
+	void unsetValuesAreMissing() throws Exception {
+		final MessageModel model = new MessageModel(null, EventFragment.EMPTY, null);
+
+		assertEquals("[]", render("[${firstName}${event}]", model));
+		assertThrows(InvalidReferenceException.class, () -> render("${response}", model));
+		model.setResponse("Z");
+		assertEquals("Z", render("${response}", model));
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.starfireaviation.sms.model;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.sms.util.ResponseParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SMSMessageTest {
+
+	private static SMSMessage lazy(final String body) {
+		return new SMSMessage(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void emptyValueIsEmptyNotNull() {
+		assertEquals("", new SMSMessage("Body=&From=%2B15125550199").getBody());
+		assertEquals("", lazy("Body=&From=%2B15125550199").getBody());
+		assertEquals("+15125550199", new SMSMessage("Body=&From=%2B15125550199").getFrom());
+	}
+
+	@Test
+	void valueContainingEqualsIsKeptWhole() {
+		assertEquals("2+2=4", new SMSMessage("Body=2%2B2=4").getBody());
+		assertEquals("2+2=4", lazy("Body=2%2B2=4").getBody());
+		assertEquals("a==b", new SMSMessage("Body=a==b").getBody());
+	}
+
+	@Test
+	void keyWithoutValueOrMalformedEscapeIsNull() {
+		assertNull(new SMSMessage("Body&From=%2B15125550199").getBody());
+		assertNull(lazy("Body&From=%2B15125550199").getBody());
+		assertNull(new SMSMessage("Body=100%").getBody());
+		assertNull(lazy("Body=100%").getBody());
+	}
+
+	@Test
+	void emptyAndMissingBodiesClassifyAlike() {
+		assertEquals(ResponseOption.UNKNOWN, ResponseParser.determineResponse(new SMSMessage("Body=").getBody()));
+		assertEquals(ResponseOption.UNKNOWN, ResponseParser.determineResponse(new SMSMessage("From=x").getBody()));
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.starfireaviation.sms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BroadcastTaskTest {
+
+	@Test
+	void visitsEveryRecipientExactlyOnce() {
+		final int recipients = 10_000;
+		final AtomicIntegerArray visits = new AtomicIntegerArray(recipients);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			pool.invoke(new BroadcastTask(0, recipients, visits::incrementAndGet));
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int i = 0; i < recipients; i++) {
+			assertEquals(1, visits.get(i), "recipient " + i);
+		}
+	}
+
+	@Test
+	void processesSmallRangesWithoutSplitting() {
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		final AtomicIntegerArray visits = new AtomicIntegerArray(10);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			pool.invoke(new BroadcastTask(2, 7, index -> {
+				threads.add(Thread.currentThread());
+				visits.incrementAndGet(index);
+			}));
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(1, threads.size());
+		assertEquals("[0, 0, 1, 1, 1, 1, 1, 0, 0, 0]", visits.toString());
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.Conversation;
+import com.starfireaviation.sms.model.ConversationPrompt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationStoreTest {
+
+	@TempDir
+	Path directory;
+
+	private ApplicationProperties.Conversations settings() {
+		final ApplicationProperties.Conversations settings = new ApplicationProperties.Conversations();
+		settings.setSnapshotEnabled(true);
+		settings.setSnapshotFile(directory.resolve("conversations.snapshot").toString());
+		return settings;
+	}
+
+	@Test
+	void replyCompletesConversationOnce() {
+		final ConversationStore store = new ConversationStore(settings(), new SimpleMeterRegistry());
+		store.begin(15555550100L, ConversationPrompt.QUESTION, 7L, 42L);
+		final Conversation conversation = store.get(15555550100L);
+		assertEquals(ConversationPrompt.QUESTION, conversation.getPrompt());
+		assertEquals(42L, conversation.getSubjectId());
+		assertTrue(store.complete(15555550100L, conversation));
+		assertFalse(store.complete(15555550100L, conversation));
+		assertNull(store.get(15555550100L));
+	}
+
+	@Test
+	void idleConversationsAreDropped() {
+		final ApplicationProperties.Conversations settings = settings();
+		settings.setIdleTimeout(-1);
+		final ConversationStore store = new ConversationStore(settings, new SimpleMeterRegistry());
+		store.begin(15555550100L, ConversationPrompt.EVENT_RSVP, 7L, 3L);
+		store.begin(15555550101L, ConversationPrompt.EVENT_RSVP, 8L, 3L);
+		assertNull(store.get(15555550100L));
+		store.sweep();
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void snapshotSurvivesRestart() throws Exception {
+		final ConversationStore store = new ConversationStore(settings(), new SimpleMeterRegistry());
+		store.begin(15555550100L, ConversationPrompt.VERIFY_SETTINGS, 7L, 0L);
+		store.begin(15555550101L, ConversationPrompt.QUESTION, 8L, 42L);
+		store.snapshot();
+
+		final ConversationStore restarted = new ConversationStore(settings(), new SimpleMeterRegistry());
+		restarted.load();
+		assertEquals(2, restarted.size());
+		assertEquals(ConversationPrompt.VERIFY_SETTINGS, restarted.get(15555550100L).getPrompt());
+		assertEquals(42L, restarted.get(15555550101L).getSubjectId());
+	}
+
+}
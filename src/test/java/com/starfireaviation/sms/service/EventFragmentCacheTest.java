@@ -0,0 +1,71 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.Address;
+import com.starfireaviation.model.Event;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.EventFragment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventFragmentCacheTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final EventFragmentCache cache = new EventFragmentCache(new ApplicationProperties.ModelCache(), registry);
+
+	private static Event event(final Long id, final String title) {
+		final Address address = new Address();
+		address.setAddressLine1("1 Hangar Rd");
+		address.setCity("Macon");
+		address.setState("GA");
+		address.setZipCode("31201");
+		final Event event = new Event();
+		event.setId(id);
+		event.setTitle(title);
+		event.setStartTime(LocalDateTime.of(2022, 10, 7, 19, 0));
+		event.setAddress(address);
+		return event;
+	}
+
+	@Test
+	void rendersOncePerEvent() {
+		final EventFragment first = cache.get(event(1L, "Ground School"));
+		final EventFragment second = cache.get(event(1L, "Ground School"));
+
+		assertSame(first, second);
+		assertEquals("Ground School", first.getEventTitle());
+		assertEquals("Friday", first.getDayOfWeek());
+		assertTrue(first.getEvent().startsWith("Ground School\n\nTime: Fri Oct 07, 2022 07:00 PM\n"));
+		assertTrue(first.getEvent().endsWith("\t1 Hangar Rd\n\tMacon, GA 31201"));
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	void reRendersChangedEvent() {
+		final EventFragment first = cache.get(event(1L, "Ground School"));
+		final Event moved = event(1L, "Ground School");
+		moved.setStartTime(LocalDateTime.of(2022, 10, 8, 19, 0));
+
+		final EventFragment second = cache.get(moved);
+
+		assertNotSame(first, second);
+		assertEquals("Saturday", second.getDayOfWeek());
+		assertSame(second, cache.get(moved));
+		assertEquals(1.0, registry.counter("sms.event.fragments.stale").count());
+	}
+
+	@Test
+	void handlesMissingEventAndId() {
+		assertSame(EventFragment.EMPTY, cache.get(null));
+		assertEquals("Ground School", cache.get(event(null, "Ground School")).getEventTitle());
+		assertEquals(0L, cache.size());
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.InboundResponse;
+import com.starfireaviation.sms.util.ResponseParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboundProcessorTest {
+
+	private static final long FROM = 15125550199L;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final List<InboundResponse> processed = Collections.synchronizedList(new ArrayList<>());
+
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private InboundProcessor processor(final int consumers, final int capacity, final Consumer<InboundResponse> handler) {
+		final ApplicationProperties.Inbound settings = new ApplicationProperties.Inbound();
+		settings.setConsumers(consumers);
+		settings.setQueueCapacity(capacity);
+		return new InboundProcessor(settings, handler, registry);
+	}
+
+	private void blockUntilReleased(final InboundResponse response) {
+		started.countDown();
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		processed.add(response);
+	}
+
+	private static InboundResponse reply(final long from) {
+		return new InboundResponse(from, ResponseParser.classify("A"));
+	}
+
+	private double gauge(final String name) {
+		return registry.get(name).gauge().value();
+	}
+
+	@Test
+	void processesRepliesFromOneNumberInOrder() {
+		final Map<Long, List<InboundResponse>> seen = new ConcurrentHashMap<>();
+		final InboundProcessor inbound = processor(4, 64, response -> seen
+				.computeIfAbsent(response.getFrom(), from -> Collections.synchronizedList(new ArrayList<>()))
+				.add(response));
+		final Map<Long, List<InboundResponse>> submitted = new ConcurrentHashMap<>();
+		for (int i = 0; i < 500; i++) {
+			final InboundResponse response = reply(FROM + i % 10);
+			submitted.computeIfAbsent(response.getFrom(), from -> new ArrayList<>()).add(response);
+			inbound.submit(response);
+		}
+		inbound.shutdown();
+
+		assertEquals(submitted, seen);
+		assertEquals(500, registry.get("sms.inbound.queue.wait").timer().count());
+	}
+
+	@Test
+	void callerWaitsWhileStripeIsFullAndGaugesReportIt() throws InterruptedException {
+		final InboundProcessor inbound = processor(1, 1, this::blockUntilReleased);
+		final InboundResponse first = reply(FROM);
+		final InboundResponse second = reply(FROM);
+		final InboundResponse third = reply(FROM);
+		inbound.submit(first);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		inbound.submit(second);
+
+		final Thread caller = new Thread(() -> inbound.submit(third));
+		caller.start();
+		caller.join(200);
+		assertTrue(caller.isAlive());
+		assertEquals(1, inbound.getQueueDepth());
+		assertEquals(1.0, gauge("sms.inbound.queue.depth"));
+		assertEquals(1.0, registry.get("sms.inbound.stripe.depth").tag("stripe", "0").gauge().value());
+		assertTrue(gauge("sms.inbound.queue.age") > 0);
+
+		release.countDown();
+		caller.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(caller.isAlive());
+		inbound.shutdown();
+
+		assertEquals(List.of(first, second, third), processed);
+		assertEquals(0.0, gauge("sms.inbound.queue.depth"));
+		assertEquals(0.0, gauge("sms.inbound.queue.age"));
+	}
+
+	@Test
+	void shutdownProcessesQueuedReplies() throws InterruptedException {
+		final InboundProcessor inbound = processor(2, 64, this::blockUntilReleased);
+		final List<InboundResponse> replies = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			final InboundResponse response = reply(FROM);
+			replies.add(response);
+			inbound.submit(response);
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		final Thread stopper = new Thread(inbound::shutdown);
+		stopper.start();
+		release.countDown();
+		stopper.join(TimeUnit.SECONDS.toMillis(10));
+
+		assertFalse(stopper.isAlive());
+		assertEquals(replies, processed);
+		assertEquals(0, inbound.getQueueDepth());
+
+		final InboundResponse late = reply(FROM);
+		inbound.submit(late);
+		assertEquals(late, processed.get(processed.size() - 1));
+	}
+
+	@Test
+	void handlerFailureDoesNotStopTheStripe() {
+		final InboundProcessor inbound = processor(1, 8, response -> {
+			if (processed.isEmpty()) {
+				processed.add(response);
+				throw new IllegalStateException("boom");
+			}
+			processed.add(response);
+		});
+		inbound.submit(reply(FROM));
+		inbound.submit(reply(FROM));
+		inbound.shutdown();
+
+		assertEquals(2, processed.size());
+	}
+
+}
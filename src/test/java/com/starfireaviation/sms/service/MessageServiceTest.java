@@ -0,0 +1,189 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.InboundResponse;
+import com.starfireaviation.sms.model.SMSMessage;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import com.starfireaviation.sms.util.RecentKeySet;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageServiceTest {
+
+	private static final String FROM = "+15125550199";
+
+	private final ApplicationProperties aProps = new ApplicationProperties();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final List<InboundResponse> submitted = Collections.synchronizedList(new ArrayList<>());
+
+	private final ForkJoinPool broadcastPool = new ForkJoinPool(1);
+
+	private OptOutRegistry optOutRegistry;
+
+	private volatile boolean failNextOptOut;
+
+	private InboundProcessor inboundProcessor;
+
+	private OutboundPipeline outboundPipeline;
+
+	private MessageService messageService;
+
+	@BeforeEach
+	void setUp() {
+		aProps.setEnabled(true);
+		aProps.getRateLimit().setEnabled(false);
+		final Configuration config = new Configuration(Configuration.VERSION_2_3_31);
+		config.setClassForTemplateLoading(TemplateRegistry.class, "/templates/");
+		final SenderNumberPool pool = new SenderNumberPool(aProps);
+		optOutRegistry = new OptOutRegistry(aProps.getOptOut(), registry) {
+			@Override
+			public boolean optOut(final long phone) {
+				if (failNextOptOut) {
+					failNextOptOut = false;
+					throw new UncheckedIOException(new IOException("disk full"));
+				}
+				return super.optOut(phone);
+			}
+		};
+		inboundProcessor = new InboundProcessor(aProps.getInbound(), submitted::add, registry);
+		outboundPipeline = new OutboundPipeline(
+				aProps.getOutbound(),
+				message -> "SM" + message.getTo(),
+				new SenderRateLimiter(aProps.getRateLimit()),
+				pool,
+				new OutboxJournal(aProps.getOutbox(), registry),
+				optOutRegistry,
+				registry);
+		messageService = new MessageService(
+				aProps,
+				new TemplateRegistry(config, aProps.getTemplates(), registry),
+				new MessageEncoder(aProps.getEncoding(), registry),
+				outboundPipeline,
+				pool,
+				inboundProcessor,
+				new ModelCache(aProps.getModelCache(), new NoOpModelLoader(), registry),
+				new EventFragmentCache(aProps.getModelCache(), registry),
+				new ConversationStore(aProps.getConversations(), registry),
+				optOutRegistry,
+				broadcastPool,
+				new RecentKeySet(aProps.getInbound().getDedupWindow(), aProps.getInbound().getDedupMaxKeys()),
+				registry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		inboundProcessor.shutdown();
+		outboundPipeline.shutdown();
+		broadcastPool.shutdown();
+	}
+
+	private double duplicates() {
+		return registry.get("sms.inbound.duplicates").counter().count();
+	}
+
+	private double responses(final ResponseOption option) {
+		return registry.get("sms.inbound.responses").tag("option", option.name()).counter().count();
+	}
+
+	@Test
+	void dropsRetriedWebhookBeforeAnySideEffect() {
+		final String webhook = "MessageSid=SM1&From=%2B15125550199&Body=STOP";
+		final long from = PhoneNumbers.parse(FROM);
+
+		messageService.receiveMessage(new SMSMessage(webhook));
+		inboundProcessor.shutdown();
+		assertTrue(optOutRegistry.isOptedOut(from));
+		assertEquals(1.0, responses(ResponseOption.STOP));
+		assertEquals(1, submitted.size());
+
+		optOutRegistry.optIn(from);
+		messageService.receiveMessage(new SMSMessage(webhook));
+		assertFalse(optOutRegistry.isOptedOut(from));
+		assertEquals(1.0, responses(ResponseOption.STOP));
+		assertEquals(1, submitted.size());
+		assertEquals(1.0, duplicates());
+	}
+
+	@Test
+	void fallsBackToSmsMessageSid() {
+		messageService.receiveMessage(new SMSMessage("SmsMessageSid=SM2&From=%2B15125550199&Body=A"));
+		messageService.receiveMessage(new SMSMessage("SmsMessageSid=SM2&From=%2B15125550199&Body=A"));
+		assertEquals(1.0, duplicates());
+
+		messageService.receiveMessage(new SMSMessage("MessageSid=SM3&SmsMessageSid=SM2&From=%2B15125550199&Body=A"));
+		assertEquals(1.0, duplicates());
+		messageService.receiveMessage(new SMSMessage("MessageSid=SM3&From=%2B15125550199&Body=A"));
+		assertEquals(2.0, duplicates());
+
+		inboundProcessor.shutdown();
+		assertEquals(2, submitted.size());
+		assertEquals(2.0, responses(ResponseOption.A));
+	}
+
+	@Test
+	void neverDropsWebhooksWithoutSid() {
+		messageService.receiveMessage(new SMSMessage("From=%2B15125550199&Body=B"));
+		messageService.receiveMessage(new SMSMessage("From=%2B15125550199&Body=B"));
+
+		inboundProcessor.shutdown();
+		assertEquals(0.0, duplicates());
+		assertEquals(2, submitted.size());
+	}
+
+	@Test
+	void yesOnlyOptsInAnOptedOutNumber() {
+		final long from = PhoneNumbers.parse(FROM);
+
+		messageService.receiveMessage(new SMSMessage("MessageSid=SM4&From=%2B15125550199&Body=YES"));
+		assertFalse(optOutRegistry.isOptedOut(from));
+		assertEquals(1.0, responses(ResponseOption.UNKNOWN));
+
+		optOutRegistry.optOut(from);
+		messageService.receiveMessage(new SMSMessage("MessageSid=SM5&From=%2B15125550199&Body=YES"));
+		assertFalse(optOutRegistry.isOptedOut(from));
+		assertEquals(1.0, responses(ResponseOption.UNKNOWN));
+
+		messageService.receiveMessage(new SMSMessage("MessageSid=SM6&From=%2B15125550199&Body=A"));
+		inboundProcessor.shutdown();
+		assertEquals(1, submitted.size());
+	}
+
+	@Test
+	void acceptsTwilioRetryOfAFailedWebhook() {
+		final String webhook = "MessageSid=SM7&From=%2B15125550199&Body=STOP";
+		final long from = PhoneNumbers.parse(FROM);
+
+		failNextOptOut = true;
+		assertThrows(UncheckedIOException.class, () -> messageService.receiveMessage(new SMSMessage(webhook)));
+		assertFalse(optOutRegistry.isOptedOut(from));
+		assertTrue(submitted.isEmpty());
+
+		messageService.receiveMessage(new SMSMessage(webhook));
+		inboundProcessor.shutdown();
+		assertEquals(0.0, duplicates());
+		assertTrue(optOutRegistry.isOptedOut(from));
+		assertEquals(1, submitted.size());
+
+		messageService.receiveMessage(new SMSMessage(webhook));
+		assertEquals(1.0, duplicates());
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.User;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ModelCacheTest {
+
+	private static class CountingLoader implements ModelLoader {
+
+		private final AtomicInteger userLoads = new AtomicInteger();
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public User loadUser(final Long userId) {
+			userLoads.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (userId > 100) {
+				return null;
+			}
+			final User user = new User();
+			user.setId(userId);
+			return user;
+		}
+
+		@Override
+		public Event loadEvent(final Long eventId) {
+			return null;
+		}
+
+		@Override
+		public Question loadQuestion(final Long questionId) {
+			return null;
+		}
+
+		@Override
+		public Quiz loadQuiz(final Long quizId) {
+			return null;
+		}
+
+	}
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		final CountingLoader loader = new CountingLoader();
+		final ModelCache cache = new ModelCache(new ApplicationProperties.ModelCache(), loader, new SimpleMeterRegistry());
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<User>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.getUser(1L)));
+			}
+			Thread.sleep(100);
+			loader.release.countDown();
+			final User first = results.get(0).get();
+			for (Future<User> result : results) {
+				assertSame(first, result.get());
+			}
+			assertEquals(1, loader.userLoads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void missingEntitiesAreCached() {
+		final CountingLoader loader = new CountingLoader();
+		loader.release.countDown();
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final ModelCache cache = new ModelCache(new ApplicationProperties.ModelCache(), loader, registry);
+		assertNull(cache.getUser(500L));
+		assertNull(cache.getUser(500L));
+		assertNull(cache.getUser(null));
+		assertEquals(1, loader.userLoads.get());
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", "sms.users").tag("result", "hit").functionCounter().count());
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.util.PhoneNumbers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptOutRegistryTest {
+
+	@TempDir
+	Path directory;
+
+	private OptOutRegistry open() throws IOException {
+		final ApplicationProperties.OptOut settings = new ApplicationProperties.OptOut();
+		settings.setPersistent(true);
+		settings.setFile(directory.resolve("opt-outs.dat").toString());
+		settings.setExpectedOptOuts(16);
+		final OptOutRegistry registry = new OptOutRegistry(settings, new SimpleMeterRegistry());
+		registry.open();
+		return registry;
+	}
+
+	@Test
+	void optInLiftsOptOut() throws IOException {
+		final OptOutRegistry registry = open();
+		final long phone = PhoneNumbers.parse("+15125550199");
+		assertFalse(registry.isOptedOut(phone));
+		assertTrue(registry.optOut(phone));
+		assertFalse(registry.optOut(phone));
+		assertTrue(registry.isOptedOut(phone));
+		assertTrue(registry.optIn(phone));
+		assertFalse(registry.isOptedOut(phone));
+		assertFalse(registry.optOut(PhoneNumbers.INVALID));
+	}
+
+	@Test
+	void changesSurviveRestartAndCompaction() throws IOException {
+		final OptOutRegistry registry = open();
+		for (long phone = 15125550000L; phone < 15125553000L; phone++) {
+			registry.optOut(phone);
+			if (phone % 3 == 0) {
+				registry.optIn(phone);
+			}
+		}
+		registry.close();
+
+		final OptOutRegistry reopened = open();
+		assertEquals(2000, reopened.size());
+		for (long phone = 15125550000L; phone < 15125553000L; phone++) {
+			assertEquals(phone % 3 != 0, reopened.isOptedOut(phone));
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.model.OutboundMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundCoalescerTest {
+
+	private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private final Counter counter = new SimpleMeterRegistry().counter("coalesced");
+
+	private final OutboundCoalescer coalescer = new OutboundCoalescer(500, 1, counter);
+
+	private final List<OutboundMessage> sent = new ArrayList<>();
+
+	private static OutboundMessage message(final String to, final String body, final boolean coalescible) {
+		return new OutboundMessage("+15125550100", to, body, coalescible);
+	}
+
+	@Test
+	void mergesMessagesToOneRecipientWithinWindow() {
+		final OutboundMessage first = message("+15125550199", "That's it, you've completed the quiz!", true);
+		final OutboundMessage second = message("+15125550199", "See you Tuesday.", true);
+		final OutboundMessage other = message("+15125550198", "Hello", true);
+
+		coalescer.offer(first, 0, sent::add);
+		coalescer.offer(second, 10, sent::add);
+		coalescer.offer(other, WINDOW - 1, sent::add);
+		coalescer.flushDue(WINDOW - 1, sent::add);
+		assertTrue(sent.isEmpty());
+
+		coalescer.flushDue(WINDOW, sent::add);
+		assertEquals(1, sent.size());
+		assertEquals("That's it, you've completed the quiz!\n\nSee you Tuesday.", sent.get(0).getBody());
+		assertEquals(1.0, counter.count());
+
+		sent.get(0).getCompletion().complete("SM1");
+		assertEquals("SM1", first.getCompletion().join());
+		assertEquals("SM1", second.getCompletion().join());
+
+		coalescer.flushDue(2 * WINDOW, sent::add);
+		assertSame(other, sent.get(1));
+		assertEquals(0, coalescer.size());
+	}
+
+	@Test
+	void neverHoldsTimeCriticalMessagesAndKeepsOrder() {
+		final OutboundMessage held = message("+15125550199", "Quiz complete", true);
+		final OutboundMessage reset = message("+15125550199", "Reset your password", false);
+
+		coalescer.offer(held, 0, sent::add);
+		coalescer.offer(reset, 1, sent::add);
+
+		assertEquals(2, sent.size());
+		assertSame(held, sent.get(0));
+		assertSame(reset, sent.get(1));
+		assertEquals(0, coalescer.size());
+	}
+
+	@Test
+	void releasesWhenOverSegmentBudget() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 150; i++) {
+			sb.append('x');
+		}
+		final OutboundMessage first = message("+15125550199", sb.toString(), true);
+		final OutboundMessage second = message("+15125550199", "One more thing", true);
+
+		coalescer.offer(first, 0, sent::add);
+		coalescer.offer(second, 1, sent::add);
+		assertEquals(1, sent.size());
+		assertSame(first, sent.get(0));
+
+		coalescer.flushAll(sent::add);
+		assertSame(second, sent.get(1));
+		assertEquals(0.0, counter.count());
+	}
+
+}
@@ -0,0 +1,340 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.OutboundMessage;
+import com.starfireaviation.sms.util.RingBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundPipelineTest {
+
+	private static final String FROM = "+15125550100";
+
+	private final ApplicationProperties aProps = new ApplicationProperties();
+
+	private final List<OutboundMessage> sent = Collections.synchronizedList(new ArrayList<>());
+
+	private final List<Thread> sendThreads = Collections.synchronizedList(new ArrayList<>());
+
+	private OutboundPipeline pipeline;
+
+	private SenderNumberPool senderNumberPool;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private OutboundPipeline pipeline(final MessageSender sender) {
+		aProps.getRateLimit().setEnabled(false);
+		senderNumberPool = new SenderNumberPool(aProps);
+		pipeline = new OutboundPipeline(
+				aProps.getOutbound(),
+				sender,
+				new SenderRateLimiter(aProps.getRateLimit()),
+				senderNumberPool,
+				new OutboxJournal(aProps.getOutbox(), registry),
+				new OptOutRegistry(aProps.getOptOut(), registry),
+				registry);
+		return pipeline;
+	}
+
+	private String record(final OutboundMessage message) {
+		sent.add(message);
+		sendThreads.add(Thread.currentThread());
+		return "SM" + sent.size();
+	}
+
+	@AfterEach
+	void stop() {
+		if (pipeline != null) {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	void sendsOnCallerThreadWhenNotRunning() {
+		final OutboundPipeline outbound = pipeline(this::record);
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+
+		assertEquals("SM1", outbound.submit(message).getNow(null));
+		assertSame(message, sent.get(0));
+		assertSame(Thread.currentThread(), sendThreads.get(0));
+		assertEquals(0, outbound.getQueueDepth());
+	}
+
+	@Test
+	void recipientErrorsDoNotCountAgainstTheSender() {
+		aProps.getNumberPool().setNumbers(List.of(FROM));
+		aProps.getNumberPool().setFailureThreshold(1);
+		final OutboundPipeline outbound = pipeline(new FailingSender(false));
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+
+		assertTrue(outbound.submit(message).isCompletedExceptionally());
+		assertEquals(0, senderNumberPool.getStats().get(FROM).getFailed());
+		assertTrue(senderNumberPool.getStats().get(FROM).isHealthy());
+	}
+
+	@Test
+	void senderErrorsCountAgainstTheSender() {
+		aProps.getNumberPool().setNumbers(List.of(FROM));
+		aProps.getNumberPool().setFailureThreshold(1);
+		final OutboundPipeline outbound = pipeline(new FailingSender(true));
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+
+		assertTrue(outbound.submit(message).isCompletedExceptionally());
+		assertEquals(1, senderNumberPool.getStats().get(FROM).getFailed());
+		assertFalse(senderNumberPool.getStats().get(FROM).isHealthy());
+	}
+
+	@Test
+	void retriesRetryableFailuresWithBackoff() {
+		aProps.getOutbound().setRetryAttempts(3);
+		aProps.getOutbound().setRetryBackoff(20);
+		final FlakySender sender = new FlakySender(2);
+		final OutboundPipeline outbound = pipeline(sender);
+		outbound.start();
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+
+		final long start = System.nanoTime();
+		assertEquals("SM3", outbound.submit(message).join());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20 + 40));
+		assertEquals(3, sender.calls);
+		assertEquals(2.0, registry.get("sms.outbound.retries").counter().count());
+	}
+
+	@Test
+	void failsOnceRetriesRunOut() {
+		aProps.getOutbound().setRetryAttempts(2);
+		aProps.getOutbound().setRetryBackoff(1);
+		final FlakySender sender = new FlakySender(Integer.MAX_VALUE);
+		final OutboundPipeline outbound = pipeline(sender);
+		outbound.start();
+
+		final CompletionException e = assertThrows(CompletionException.class,
+				() -> outbound.submit(new OutboundMessage(FROM, "+15125550199", "Hello")).join());
+		assertEquals("unavailable", e.getCause().getMessage());
+		assertEquals(3, sender.calls);
+		assertEquals(2.0, registry.get("sms.outbound.retries").counter().count());
+	}
+
+	@Test
+	void doesNotRetryWhenNotRunning() {
+		final FlakySender sender = new FlakySender(1);
+		final OutboundPipeline outbound = pipeline(sender);
+
+		assertTrue(outbound.submit(new OutboundMessage(FROM, "+15125550199", "Hello")).isCompletedExceptionally());
+		assertEquals(1, sender.calls);
+	}
+
+	@Test
+	void shutdownFailsPendingRetries() {
+		aProps.getOutbound().setRetryBackoff(TimeUnit.MINUTES.toMillis(1));
+		final FlakySender sender = new FlakySender(Integer.MAX_VALUE);
+		final OutboundPipeline outbound = pipeline(sender);
+		outbound.start();
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+		outbound.submit(message);
+		while (registry.get("sms.outbound.retries").counter().count() < 1) {
+			Thread.onSpinWait();
+		}
+
+		outbound.shutdown();
+		assertTrue(message.getCompletion().isCompletedExceptionally());
+		assertEquals(1, sender.calls);
+	}
+
+	@Test
+	void keepsSubmissionOrderPerRecipient() {
+		aProps.getOutbound().setConsumers(4);
+		final OutboundPipeline outbound = pipeline(this::record);
+		outbound.start();
+		final List<OutboundMessage> messages = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			final OutboundMessage message = new OutboundMessage(FROM, "+1512555" + (1000 + i % 5), "m" + i);
+			messages.add(message);
+			outbound.submit(message);
+		}
+		messages.forEach(message -> message.getCompletion().join());
+
+		assertEquals(200, sent.size());
+		for (int recipient = 0; recipient < 5; recipient++) {
+			final String to = "+1512555" + (1000 + recipient);
+			int last = -1;
+			for (OutboundMessage message : new ArrayList<>(sent)) {
+				if (to.equals(message.getTo())) {
+					final int index = Integer.parseInt(message.getBody().substring(1));
+					assertTrue(index > last, "out of order for " + to);
+					last = index;
+				}
+			}
+		}
+		assertFalse(sendThreads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	void shutdownSendsWhatIsStillQueued() throws InterruptedException {
+		aProps.getOutbound().setConsumers(1);
+		final CountDownLatch sending = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final OutboundPipeline outbound = pipeline(message -> {
+			sending.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return record(message);
+		});
+		outbound.start();
+		final List<OutboundMessage> messages = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "m" + i);
+			messages.add(message);
+			outbound.submit(message);
+		}
+		assertTrue(sending.await(5, TimeUnit.SECONDS));
+		assertTrue(sent.isEmpty());
+
+		final Thread stopper = new Thread(outbound::shutdown);
+		stopper.start();
+		release.countDown();
+		stopper.join(TimeUnit.SECONDS.toMillis(10));
+
+		assertFalse(stopper.isAlive());
+		assertEquals(messages, sent);
+		messages.forEach(message -> assertTrue(message.getCompletion().isDone()));
+		assertEquals(0, outbound.getQueueDepth());
+	}
+
+	@Test
+	void sendsAMessageQueuedWhileShuttingDown() {
+		aProps.getRateLimit().setEnabled(false);
+		pipeline = new OutboundPipeline(
+				aProps.getOutbound(),
+				this::record,
+				new SenderRateLimiter(aProps.getRateLimit()),
+				new SenderNumberPool(aProps),
+				new OutboxJournal(aProps.getOutbox(), registry),
+				new OptOutRegistry(aProps.getOptOut(), registry),
+				registry) {
+			@Override
+			boolean offer(final RingBuffer<OutboundMessage> stripe, final OutboundMessage message) {
+				final Thread stopper = new Thread(this::shutdown);
+				stopper.start();
+				try {
+					stopper.join(TimeUnit.SECONDS.toMillis(10));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.offer(stripe, message);
+			}
+		};
+		pipeline.start();
+		final OutboundMessage message = new OutboundMessage(FROM, "+15125550199", "Hello");
+
+		assertEquals("SM1", pipeline.submit(message).getNow(null));
+		assertEquals(List.of(message), sent);
+		assertEquals(0, pipeline.getQueueDepth());
+	}
+
+	@Test
+	void submitRacingShutdownNeverStrandsAMessage() throws InterruptedException {
+		aProps.getOutbound().setConsumers(2);
+		for (int round = 0; round < 20; round++) {
+			sent.clear();
+			final OutboundPipeline outbound = pipeline(this::record);
+			outbound.start();
+			final List<OutboundMessage> messages = Collections.synchronizedList(new ArrayList<>());
+			final CountDownLatch go = new CountDownLatch(1);
+			final List<Thread> submitters = new ArrayList<>();
+			for (int t = 0; t < 3; t++) {
+				final int producer = t;
+				final Thread submitter = new Thread(() -> {
+					try {
+						go.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for (int i = 0; i < 200; i++) {
+						final OutboundMessage message = new OutboundMessage(FROM, "+1512555" + (1000 + producer), "m" + i);
+						messages.add(message);
+						outbound.submit(message);
+					}
+				});
+				submitter.start();
+				submitters.add(submitter);
+			}
+			go.countDown();
+			outbound.shutdown();
+			for (Thread submitter : submitters) {
+				submitter.join(TimeUnit.SECONDS.toMillis(10));
+				assertFalse(submitter.isAlive());
+			}
+
+			assertEquals(600, messages.size());
+			messages.forEach(message -> assertTrue(message.getCompletion().isDone()));
+			assertEquals(600, sent.size());
+			assertEquals(0, outbound.getQueueDepth());
+		}
+	}
+
+	private static final class FlakySender implements MessageSender {
+
+		private final int failures;
+
+		private volatile int calls;
+
+		private FlakySender(final int failing) {
+			failures = failing;
+		}
+
+		@Override
+		public String send(final OutboundMessage message) {
+			calls++;
+			if (calls <= failures) {
+				throw new IllegalStateException("unavailable");
+			}
+			return "SM" + calls;
+		}
+
+	}
+
+	private static final class FailingSender implements MessageSender {
+
+		private final boolean senderFailure;
+
+		private FailingSender(final boolean failure) {
+			senderFailure = failure;
+		}
+
+		@Override
+		public String send(final OutboundMessage message) {
+			throw new IllegalStateException("rejected");
+		}
+
+		@Override
+		public boolean isRetryable(final RuntimeException e) {
+			return false;
+		}
+
+		@Override
+		public boolean isSenderFailure(final RuntimeException e) {
+			return senderFailure;
+		}
+
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.OutboundMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private OutboxJournal open(final int segmentSize) throws IOException {
+		final ApplicationProperties.Outbox settings = new ApplicationProperties.Outbox();
+		settings.setEnabled(true);
+		settings.setDirectory(directory.toString());
+		settings.setSegmentSize(segmentSize);
+		final OutboxJournal journal = new OutboxJournal(settings, new SimpleMeterRegistry());
+		journal.open();
+		return journal;
+	}
+
+	private List<String> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	void replaysOnlyPendingMessages() throws IOException {
+		final OutboxJournal journal = open(4096);
+		final OutboundMessage sent = new OutboundMessage("+15125550100", "+15125550199", "sent");
+		final OutboundMessage unsent = new OutboundMessage(null, "+15125550198", "café 🚀");
+		journal.append(sent);
+		journal.append(unsent);
+		journal.markDone(sent);
+		journal.close();
+
+		final OutboxJournal reopened = open(4096);
+		final List<OutboundMessage> recovered = reopened.recover();
+		assertEquals(1, recovered.size());
+		assertNull(recovered.get(0).getFrom());
+		assertEquals("+15125550198", recovered.get(0).getTo());
+		assertEquals("café 🚀", recovered.get(0).getBody());
+		assertEquals(List.of("outbox-00000000000000000001.log"), segments());
+		assertTrue(reopened.recover().isEmpty());
+
+		reopened.markDone(recovered.get(0));
+		reopened.close();
+		assertTrue(open(4096).recover().isEmpty());
+	}
+
+	@Test
+	void keepsCoalescibleFlag() throws IOException {
+		final OutboxJournal journal = open(4096);
+		journal.append(new OutboundMessage("+15125550100", "+15125550199", "held", true));
+		journal.append(new OutboundMessage("+15125550100", "+15125550199", "urgent", false));
+		journal.close();
+
+		final List<OutboundMessage> recovered = open(4096).recover();
+		assertEquals(2, recovered.size());
+		assertTrue(recovered.get(0).isCoalescible());
+		assertFalse(recovered.get(1).isCoalescible());
+	}
+
+	@Test
+	void readsRecordsWithoutFlags() throws IOException {
+		final byte[] to = "+15125550199".getBytes(StandardCharsets.UTF_8);
+		final byte[] body = "legacy".getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer payload = ByteBuffer.allocate(3 * Integer.BYTES + to.length + body.length);
+		payload.putInt(-1).putInt(to.length).put(to).putInt(body.length).put(body);
+		final CRC32 crc = new CRC32();
+		crc.update(payload.array());
+		final ByteBuffer record = ByteBuffer.allocate(256);
+		record.putInt(payload.capacity()).putInt((int) crc.getValue()).put((byte) 1).put(payload.array());
+		Files.write(directory.resolve("outbox-00000000000000000000.log"), record.array());
+
+		final List<OutboundMessage> recovered = open(4096).recover();
+		assertEquals(1, recovered.size());
+		assertNull(recovered.get(0).getFrom());
+		assertEquals("legacy", recovered.get(0).getBody());
+		assertFalse(recovered.get(0).isCoalescible());
+	}
+
+	@Test
+	void deletesSealedSegmentsOnceDone() throws IOException {
+		final OutboxJournal journal = open(256);
+		final OutboundMessage first = new OutboundMessage("+15125550100", "+15125550199", "x".repeat(150));
+		final OutboundMessage second = new OutboundMessage("+15125550100", "+15125550199", "y".repeat(150));
+		journal.append(first);
+		journal.append(second);
+		assertEquals(2, segments().size());
+		journal.markDone(first);
+		assertEquals(List.of("outbox-00000000000000000001.log"), segments());
+		journal.markDone(second);
+		journal.close();
+		assertTrue(open(256).recover().isEmpty());
+	}
+
+}
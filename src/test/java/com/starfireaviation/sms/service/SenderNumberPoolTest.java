@@ -0,0 +1,141 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SenderNumberPoolTest {
+
+	private static final List<String> NUMBERS =
+			List.of("+15125550100", "+15125550101", "+15125550102", "+15125550103");
+
+	private static final int RECIPIENTS = 10_000;
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private SenderNumberPool pool(final List<String> numbers) {
+		final ApplicationProperties aProps = new ApplicationProperties();
+		aProps.getNumberPool().setNumbers(new ArrayList<>(numbers));
+		aProps.getNumberPool().setFailureThreshold(2);
+		aProps.getNumberPool().setCoolDown(1000);
+		return new SenderNumberPool(aProps, clock::get);
+	}
+
+	private static String recipient(final int i) {
+		return String.format("+1737%07d", i);
+	}
+
+	@Test
+	void selectsSameSenderForEveryFormatOfANumber() {
+		final SenderNumberPool pool = pool(NUMBERS);
+
+		for (int i = 0; i < 1000; i++) {
+			final String digits = String.format("737%07d", i);
+			final String selected = pool.select("+1" + digits);
+			assertEquals(selected, pool.select(digits));
+			assertEquals(selected, pool.select("1" + digits));
+			assertEquals(selected, pool.select(
+					"(" + digits.substring(0, 3) + ") " + digits.substring(3, 6) + "-" + digits.substring(6)));
+		}
+	}
+
+	@Test
+	void assignmentDoesNotDependOnConfigurationOrder() {
+		final List<String> reversed = new ArrayList<>(NUMBERS);
+		Collections.reverse(reversed);
+		final SenderNumberPool pool = pool(NUMBERS);
+		final SenderNumberPool reordered = pool(reversed);
+
+		for (int i = 0; i < RECIPIENTS; i++) {
+			assertEquals(pool.select(recipient(i)), reordered.select(recipient(i)));
+			assertEquals(pool.select(recipient(i)), pool.select(recipient(i)));
+		}
+	}
+
+	@Test
+	void addingANumberOnlyMovesRecipientsToIt() {
+		final List<String> grown = new ArrayList<>(NUMBERS);
+		grown.add("+15125550104");
+		final SenderNumberPool before = pool(NUMBERS);
+		final SenderNumberPool after = pool(grown);
+
+		int moved = 0;
+		for (int i = 0; i < RECIPIENTS; i++) {
+			final String selected = after.select(recipient(i));
+			if (!selected.equals(before.select(recipient(i)))) {
+				assertEquals("+15125550104", selected);
+				moved++;
+			}
+		}
+		assertTrue(moved > RECIPIENTS / 10 && moved < RECIPIENTS * 3 / 10, "moved " + moved);
+	}
+
+	@Test
+	void removingANumberOnlyMovesItsRecipients() {
+		final SenderNumberPool before = pool(NUMBERS);
+		final SenderNumberPool after = pool(NUMBERS.subList(1, NUMBERS.size()));
+
+		for (int i = 0; i < RECIPIENTS; i++) {
+			final String previous = before.select(recipient(i));
+			if (!previous.equals(NUMBERS.get(0))) {
+				assertEquals(previous, after.select(recipient(i)));
+			}
+		}
+	}
+
+	@Test
+	void skipsFailingNumberUntilCoolDownEnds() {
+		final SenderNumberPool pool = pool(NUMBERS);
+		final String to = recipient(42);
+		final String home = pool.select(to);
+
+		pool.recordResult(home, false);
+		assertEquals(home, pool.select(to));
+		pool.recordResult(home, false);
+		final String fallback = pool.select(to);
+		assertNotEquals(home, fallback);
+		assertFalse(pool.getStats().get(home).isHealthy());
+		assertEquals(2, pool.getStats().get(home).getFailed());
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertEquals(fallback, pool.select(to));
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertEquals(home, pool.select(to));
+		assertTrue(pool.getStats().get(home).isHealthy());
+	}
+
+	@Test
+	void successRestoresNumberBeforeCoolDownEnds() {
+		final SenderNumberPool pool = pool(NUMBERS);
+		final String to = recipient(7);
+		final String home = pool.select(to);
+		pool.recordResult(home, false);
+		pool.recordResult(home, false);
+		assertNotEquals(home, pool.select(to));
+
+		pool.recordResult(home, true);
+		assertEquals(home, pool.select(to));
+		assertEquals(0, pool.getStats().get(home).getConsecutiveFailures());
+	}
+
+	@Test
+	void fallsBackToFromAddress() {
+		final ApplicationProperties aProps = new ApplicationProperties();
+		assertNull(new SenderNumberPool(aProps).select(recipient(1)));
+
+		aProps.setFromAddress("+15125550100");
+		assertEquals("+15125550100", new SenderNumberPool(aProps).select(recipient(1)));
+	}
+
+}
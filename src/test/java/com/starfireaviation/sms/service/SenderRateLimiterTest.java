@@ -0,0 +1,67 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.sms.config.ApplicationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SenderRateLimiterTest {
+
+	private static final String FIRST = "+15125550100";
+
+	private static final String SECOND = "+15125550101";
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final ApplicationProperties.RateLimit settings = new ApplicationProperties.RateLimit();
+
+	@Test
+	void keepsEachSenderInItsOwnBucket() {
+		settings.setMessagesPerSecond(1.0);
+		settings.setBurst(2);
+		final SenderRateLimiter limiter = new SenderRateLimiter(settings, clock::get);
+
+		assertEquals(0, limiter.acquire(FIRST));
+		assertEquals(0, limiter.acquire(FIRST));
+		assertEquals(0, limiter.acquire(SECOND));
+		assertEquals(0, limiter.acquire(SECOND));
+		assertEquals(4, limiter.getAcquired());
+		assertEquals(0, limiter.getDelayed());
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(0, limiter.acquire(FIRST));
+		assertEquals(0, limiter.acquire(SECOND));
+		assertEquals(0, limiter.getDelayed());
+	}
+
+	@Test
+	void appliesPerNumberBudgets() {
+		settings.setMessagesPerSecond(1.0);
+		settings.setNumbers(Map.of(SECOND, 10.0));
+		final SenderRateLimiter limiter = new SenderRateLimiter(settings, clock::get);
+
+		assertEquals(1.0, limiter.getMessagesPerSecond(FIRST));
+		assertEquals(10.0, limiter.getMessagesPerSecond(SECOND));
+
+		assertEquals(0, limiter.acquire(SECOND));
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(0, limiter.acquire(SECOND));
+		assertEquals(0, limiter.getDelayed());
+	}
+
+	@Test
+	void skipsLimitingWhenDisabled() {
+		settings.setEnabled(false);
+		final SenderRateLimiter limiter = new SenderRateLimiter(settings, clock::get);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limiter.acquire(FIRST));
+		}
+		assertEquals(0, limiter.getAcquired());
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.starfireaviation.sms.service;
+
+import com.starfireaviation.model.Answer;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.User;
+import com.starfireaviation.sms.config.ApplicationProperties;
+import com.starfireaviation.sms.model.EventFragment;
+import com.starfireaviation.sms.model.MessageModel;
+import com.starfireaviation.sms.model.MessageTemplate;
+import freemarker.cache.StringTemplateLoader;
+import freemarker.core.InvalidReferenceException;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateRegistryTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private TemplateRegistry registry(final boolean compiled) {
+		final Configuration config = configuration();
+		config.setClassForTemplateLoading(TemplateRegistry.class, "/templates/");
+		return registry(config, compiled);
+	}
+
+	private TemplateRegistry registry(final Configuration config, final boolean compiled) {
+		final ApplicationProperties.Templates settings = new ApplicationProperties.Templates();
+		settings.setCompiled(compiled);
+		return new TemplateRegistry(config, settings, meterRegistry);
+	}
+
+	private static Configuration configuration() {
+		final Configuration config = new Configuration(Configuration.VERSION_2_3_31);
+		config.setDefaultEncoding(StandardCharsets.UTF_8.name());
+		return config;
+	}
+
+	private static MessageModel model() {
+		final User user = new User();
+		user.setId(1042L);
+		user.setFirstName("Amelia");
+		user.setLastName("Earhart");
+		user.setCode("482913");
+		final Question question = new Question();
+		question.setText("What are characteristics of a moist, unstable air mass?");
+		question.setAnswers(Arrays.asList(answer("A", "Cumuliform"), answer("B", "Smooth"), answer("C", "Stratiform")));
+		final EventFragment fragment = new EventFragment(
+				1L, "Ground School\n\nTime: Tue Oct 18, 2022 06:30 PM\n", "Ground School", "Tuesday");
+		final MessageModel model = new MessageModel(user, fragment, question);
+		model.setHostUi("https://groundschool.starfireaviation.com");
+		model.setResponse("Z");
+		model.setOriginalMessage("Please verify your settings");
+		return model;
+	}
+
+	private static Answer answer(final String choice, final String text) {
+		final Answer answer = new Answer();
+		answer.setChoice(choice);
+		answer.setText(text);
+		return answer;
+	}
+
+	@Test
+	void loadsEveryTemplate() {
+		final TemplateRegistry compiled = registry(true);
+
+		for (MessageTemplate template : MessageTemplate.values()) {
+			assertNotNull(compiled.getTemplate(template), template.name());
+		}
+	}
+
+	@Test
+	void failsStartupOnMissingTemplate() {
+		final StringTemplateLoader loader = new StringTemplateLoader();
+		for (MessageTemplate template : MessageTemplate.values()) {
+			if (template != MessageTemplate.QUESTION) {
+				loader.putTemplate(template.getFileName(), "Hi ${user.firstName}");
+			}
+		}
+		final Configuration config = configuration();
+		config.setTemplateLoader(loader);
+
+		final IllegalStateException e = assertThrows(IllegalStateException.class, () -> registry(config, true));
+		assertTrue(e.getMessage().contains(MessageTemplate.QUESTION.getFileName()), e.getMessage());
+	}
+
+	@Test
+	void compiledOutputMatchesFreeMarker() throws Exception {
+		final TemplateRegistry compiled = registry(true);
+		final TemplateRegistry freeMarker = registry(false);
+
+		for (MessageTemplate template : MessageTemplate.values()) {
+			assertTrue(compiled.isCompiled(template), template.name());
+			assertFalse(freeMarker.isCompiled(template), template.name());
+			assertEquals(freeMarker.render(template, model()), compiled.render(template, model()), template.name());
+		}
+	}
+
+	@Test
+	void missingVariablesStillFail() {
+		final TemplateRegistry compiled = registry(true);
+		final MessageModel model = new MessageModel(null, EventFragment.EMPTY, null);
+
+		assertThrows(InvalidReferenceException.class, () -> compiled.render(MessageTemplate.GS_EVENT_START, model));
+	}
+
+	@Test
+	void recordsFailedRenders() {
+		final TemplateRegistry compiled = registry(true);
+		final MessageModel model = new MessageModel(null, EventFragment.EMPTY, null);
+
+		assertThrows(InvalidReferenceException.class, () -> compiled.render(MessageTemplate.GS_EVENT_START, model));
+		assertEquals(1, renderTimer(MessageTemplate.GS_EVENT_START, "failure").count());
+		assertEquals(0, renderTimer(MessageTemplate.GS_EVENT_START, "success").count());
+	}
+
+	private Timer renderTimer(final MessageTemplate template, final String outcome) {
+		return meterRegistry.get("sms.template.render")
+				.tag("template", template.name())
+				.tag("outcome", outcome)
+				.timer();
+	}
+
+}
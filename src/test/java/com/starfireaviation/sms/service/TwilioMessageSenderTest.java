@@ -0,0 +1,74 @@
+package com.starfireaviation.sms.service;
+
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TwilioMessageSenderTest {
+
+	private final TwilioMessageSender sender = new TwilioMessageSender(
+			new TwilioRestClient.Builder("ACtest", "token").build(), new SimpleMeterRegistry());
+
+	private static ApiException error(final int code, final int status) {
+		return new ApiException("error " + code, code, null, status, null);
+	}
+
+	@Test
+	void attributesRecipientErrorsToTheRecipient() {
+		final ApiException optedOut = error(21610, 400);
+		assertTrue(sender.isOptedOut(optedOut));
+		assertFalse(sender.isRetryable(optedOut));
+		assertFalse(sender.isSenderFailure(optedOut));
+		assertFalse(sender.isSenderFailure(error(21211, 400)));
+		assertFalse(sender.isSenderFailure(error(21614, 400)));
+	}
+
+	@Test
+	void attributesTransportAndFromNumberErrorsToTheSender() {
+		assertTrue(sender.isSenderFailure(error(20500, 500)));
+		assertTrue(sender.isSenderFailure(error(20429, 429)));
+		assertTrue(sender.isSenderFailure(new ApiConnectionException("timed out")));
+		assertTrue(sender.isSenderFailure(error(21606, 400)));
+		assertTrue(sender.isSenderFailure(error(21212, 400)));
+		assertFalse(sender.isRetryable(error(21606, 400)));
+	}
+
+	@Test
+	void retriesFailuresBeforeTheRequestWasSent() {
+		assertTrue(sender.isRetryable(error(20429, 429)));
+		assertTrue(sender.isRetryable(error(20500, 500)));
+		assertTrue(sender.isRetryable(error(20503, 503)));
+		assertTrue(sender.isRetryable(new ApiException("refused", new HttpHostConnectException(
+				new ConnectException("Connection refused"), new HttpHost("api.twilio.com", 443)))));
+		assertTrue(sender.isRetryable(new ApiException("connect", new ConnectTimeoutException("connect timed out"))));
+		assertTrue(sender.isRetryable(new ApiException("pool", new ConnectionPoolTimeoutException("no connection"))));
+		assertTrue(sender.isRetryable(new ApiException("dns", new UnknownHostException("api.twilio.com"))));
+	}
+
+	@Test
+	void doesNotRetryFailuresTwilioMayHaveAccepted() {
+		final ApiException readTimeout = new ApiException("read", new SocketTimeoutException("Read timed out"));
+		assertFalse(sender.isRetryable(readTimeout));
+		assertTrue(sender.isSenderFailure(readTimeout));
+		assertFalse(sender.isRetryable(new ApiException("dropped", new NoHttpResponseException("no response"))));
+		assertFalse(sender.isRetryable(new ApiConnectionException("Message creation failed: Unable to connect to server")));
+		assertFalse(sender.isRetryable(new ApiException("Server Error, no content")));
+		assertFalse(sender.isRetryable(error(0, 302)));
+		assertFalse(sender.isRetryable(new IllegalStateException("unexpected")));
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedExecutorTest {
+
+	@Test
+	void blocksSubmitterOnceEveryPermitIsTaken() throws InterruptedException {
+		final ExecutorService delegate = Executors.newCachedThreadPool();
+		final BoundedExecutor executor = new BoundedExecutor(delegate, 2);
+		final CountDownLatch running = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger completed = new AtomicInteger();
+		final Runnable task = () -> {
+			running.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			completed.incrementAndGet();
+		};
+		executor.execute(task);
+		executor.execute(task);
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		assertEquals(2, executor.getActiveCount());
+
+		final Thread submitter = new Thread(() -> executor.execute(completed::incrementAndGet));
+		submitter.start();
+		submitter.join(200);
+		assertTrue(submitter.isAlive());
+
+		release.countDown();
+		submitter.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(submitter.isAlive());
+		assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+		assertEquals(3, completed.get());
+		assertEquals(0, executor.getActiveCount());
+	}
+
+	@Test
+	void releasesPermitWhenTaskFailsOrIsRejected() {
+		final ExecutorService delegate = Executors.newSingleThreadExecutor();
+		final BoundedExecutor executor = new BoundedExecutor(delegate, 1);
+		executor.execute(() -> {
+			throw new IllegalStateException("boom");
+		});
+		assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+		assertEquals(0, executor.getActiveCount());
+
+		assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+		assertEquals(0, executor.getActiveCount());
+	}
+
+	@Test
+	void rejectsInvalidLimit() {
+		assertThrows(IllegalArgumentException.class, () -> new BoundedExecutor(Executors.newCachedThreadPool(), 0));
+	}
+
+}
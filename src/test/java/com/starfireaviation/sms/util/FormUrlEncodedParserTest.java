@@ -0,0 +1,106 @@
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.sms.model.SMSMessage;
+import com.starfireaviation.sms.model.TwilioPart;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormUrlEncodedParserTest {
+
+	private static final String TWILIO_BODY = "ToCountry=US&ToState=TX&SmsMessageSid=SM0123456789abcdef0123456789abcdef"
+			+ "&NumMedia=0&ToCity=AUSTIN&FromZip=78701&SmsSid=SM0123456789abcdef0123456789abcdef&FromState=TX"
+			+ "&SmsStatus=received&FromCity=AUSTIN&Body=Confirm+it%21&FromCountry=US&To=%2B15125550100"
+			+ "&MessagingServiceSid=MG0123456789abcdef0123456789abcdef&ToZip=78701&NumSegments=1"
+			+ "&MessageSid=SM0123456789abcdef0123456789abcdef&AccountSid=AC0123456789abcdef0123456789abcdef"
+			+ "&From=%2B15125550199&ApiVersion=2010-04-01";
+
+	private static Map<TwilioPart, String> parse(final String body) {
+		final Map<TwilioPart, String> fields = new EnumMap<>(TwilioPart.class);
+		FormUrlEncodedParser.parse(body, fields::put);
+		return fields;
+	}
+
+	@Test
+	void parsesTwilioWebhook() {
+		final SMSMessage message = new SMSMessage(TWILIO_BODY);
+		assertEquals("+15125550199", message.getFrom());
+		assertEquals("+15125550100", message.getDestination());
+		assertEquals("Confirm it!", message.getBody());
+		assertEquals("SM0123456789abcdef0123456789abcdef", message.getMessageSid());
+		assertEquals("2010-04-01", message.getApiVersion());
+		assertEquals(19, parse(TWILIO_BODY).size());
+	}
+
+	@Test
+	void skipsUnknownKeys() {
+		final Map<TwilioPart, String> fields = parse("MediaUrl0=http%3A%2F%2Fx&OptOutType=STOP&Body=hi&body=lower");
+		assertEquals(1, fields.size());
+		assertEquals("hi", fields.get(TwilioPart.Body));
+	}
+
+	@Test
+	void decodesUtf8AndPlus() {
+		assertEquals("café 🚀 a+b", parse("Body=caf%C3%A9+%F0%9F%9A%80+a%2Bb").get(TwilioPart.Body));
+		assertEquals("naïve", parse("Body=naïve").get(TwilioPart.Body));
+	}
+
+	@Test
+	void keepsEqualsSignsInValues() {
+		assertEquals("a=b", parse("Body=a=b").get(TwilioPart.Body));
+	}
+
+	@Test
+	void handlesEmptyAndMissingValues() {
+		assertEquals("", parse("Body=").get(TwilioPart.Body));
+		assertFalse(parse("Body").containsKey(TwilioPart.Body));
+		assertFalse(parse("=value").containsKey(TwilioPart.Body));
+		assertTrue(parse("").isEmpty());
+		assertTrue(parse("&&&").isEmpty());
+		assertTrue(parse(null).isEmpty());
+		assertEquals("x", parse("&&Body=x&&").get(TwilioPart.Body));
+	}
+
+	@Test
+	void skipsMalformedEscapes() {
+		final Map<TwilioPart, String> fields = parse("Body=100%&From=%2G15125550199&To=%2&ToZip=%2B1");
+		assertNull(fields.get(TwilioPart.Body));
+		assertNull(fields.get(TwilioPart.From));
+		assertNull(fields.get(TwilioPart.To));
+		assertEquals("+1", fields.get(TwilioPart.ToZip));
+	}
+
+	@Test
+	void lastDuplicateWins() {
+		assertEquals("second", new SMSMessage("Body=first&Body=second").getBody());
+		assertEquals("second", new SMSMessage("Body=first&Body=second".getBytes(StandardCharsets.UTF_8)).getBody());
+	}
+
+	@Test
+	void lazyMessageMatchesEagerMessage() {
+		final SMSMessage eager = new SMSMessage(TWILIO_BODY);
+		final SMSMessage lazy = new SMSMessage(TWILIO_BODY.getBytes(StandardCharsets.UTF_8));
+		assertEquals("+15125550199", lazy.getFrom());
+		assertEquals("Confirm it!", lazy.getBody());
+		assertEquals(eager, lazy);
+		assertEquals(eager.toString(), lazy.toString());
+	}
+
+	@Test
+	void lazyMessageHandlesMalformedInput() {
+		final SMSMessage lazy = new SMSMessage("Body=100%&From=%2B1&To&=x&Body2=y&ToZip=caf%C3%A9".getBytes(StandardCharsets.UTF_8));
+		assertNull(lazy.getBody());
+		assertEquals("+1", lazy.getFrom());
+		assertNull(lazy.getDestination());
+		assertEquals("café", lazy.getToZip());
+		assertNull(new SMSMessage((byte[]) null).getFrom());
+	}
+
+}
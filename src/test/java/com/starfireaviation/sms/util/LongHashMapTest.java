@@ -0,0 +1,70 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashMapTest {
+
+	@Test
+	void matchesHashMapUnderRandomOperations() {
+		final LongHashMap<Long> map = new LongHashMap<>();
+		final Map<Long, Long> expected = new HashMap<>();
+		final Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			final long key = random.nextInt(2000) - 1000;
+			if (random.nextBoolean()) {
+				assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+			} else {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (long key = -1000; key < 1000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+		final int sizeBefore = expected.size();
+		expected.keySet().removeIf(key -> key % 2 == 0);
+		assertEquals(sizeBefore - expected.size(), map.removeIf((key, value) -> key % 2 == 0));
+		assertEquals(expected.size(), map.size());
+		map.forEach((key, value) -> assertEquals(expected.get(key), value));
+	}
+
+	@Test
+	void removesOnlyTheExpectedValue() {
+		final LongHashMap<String> map = new LongHashMap<>();
+		final String value = "a";
+		map.put(1L, value);
+		assertFalse(map.remove(1L, "b"));
+		assertTrue(map.remove(1L, value));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	void setMatchesHashSetUnderRandomOperations() {
+		final LongHashSet set = new LongHashSet();
+		final Set<Long> expected = new HashSet<>();
+		final Random random = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			final long value = random.nextInt(2000) - 1000;
+			if (random.nextBoolean()) {
+				assertEquals(expected.add(value), set.add(value));
+			} else {
+				assertEquals(expected.remove(value), set.remove(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (long value = -1000; value < 1000; value++) {
+			assertEquals(expected.contains(value), set.contains(value));
+		}
+	}
+
+}
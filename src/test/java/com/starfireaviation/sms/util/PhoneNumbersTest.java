@@ -0,0 +1,40 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PhoneNumbersTest {
+
+	@Test
+	void formatsOfOneNumberShareAKey() {
+		final long key = 15125550199L;
+		assertEquals(key, PhoneNumbers.parse("+15125550199"));
+		assertEquals(key, PhoneNumbers.parse("5125550199"));
+		assertEquals(key, PhoneNumbers.parse("15125550199"));
+		assertEquals(key, PhoneNumbers.parse("(512) 555-0199"));
+		assertEquals(key, PhoneNumbers.parse(" +1 512.555.0199 "));
+		assertEquals(key, PhoneNumbers.parse("0015125550199"));
+		assertEquals("+15125550199", PhoneNumbers.format(key));
+	}
+
+	@Test
+	void parsesOtherCountryCodes() {
+		assertEquals(447700900123L, PhoneNumbers.parse("+44 7700 900123"));
+		assertEquals(61491570156L, PhoneNumbers.parse("0061491570156"));
+		assertEquals(861012345678L, PhoneNumbers.parse("+86 10 1234 5678"));
+	}
+
+	@Test
+	void rejectsInvalidNumbers() {
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse(null));
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse(""));
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+"));
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+0123456789"));
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+1512555019x"));
+		assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+1234567890123456"));
+		assertNull(PhoneNumbers.format(PhoneNumbers.INVALID));
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlaceholderTemplateTest {
+
+	@Test
+	void compilesPlainInterpolations() throws Exception {
+		final PlaceholderTemplate template = PlaceholderTemplate.compile("Hi ${firstName} ${last_name2}, {code} $5!");
+		final Map<String, Object> model = new HashMap<>();
+		model.put("firstName", "Amelia");
+		model.put("last_name2", "Earhart");
+
+		assertNotNull(template);
+		assertArrayEquals(new String[] {"firstName", "last_name2"}, template.getVariables());
+		assertEquals("Hi Amelia Earhart, {code} $5!", template.render(model));
+		assertEquals("plain", PlaceholderTemplate.compile("plain").render(model));
+	}
+
+	@Test
+	void rejectsAnythingFreeMarkerInterprets() {
+		assertNull(PlaceholderTemplate.compile("<#if x>${x}</#if>"));
+		assertNull(PlaceholderTemplate.compile("<#-- comment -->"));
+		assertNull(PlaceholderTemplate.compile("<@macro/>"));
+		assertNull(PlaceholderTemplate.compile("[#ftl]${x}"));
+		assertNull(PlaceholderTemplate.compile("#{x}"));
+		assertNull(PlaceholderTemplate.compile("${x!''}"));
+		assertNull(PlaceholderTemplate.compile("${ x }"));
+		assertNull(PlaceholderTemplate.compile("${x.y}"));
+		assertNull(PlaceholderTemplate.compile("${1x}"));
+		assertNull(PlaceholderTemplate.compile("${}"));
+		assertNull(PlaceholderTemplate.compile("${x"));
+	}
+
+	@Test
+	void leavesMissingAndNonStringValuesToFreeMarker() throws Exception {
+		final PlaceholderTemplate template = PlaceholderTemplate.compile("${userId}");
+		final Map<String, Object> model = new HashMap<>();
+
+		assertNull(template.render(model));
+		model.put("userId", 1042L);
+		assertNull(template.render(model));
+		assertNull(template.render("not a model"));
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentKeySetTest {
+
+	@Test
+	void rejectsKeysSeenWithinTheWindow() {
+		final RecentKeySet keys = new RecentKeySet(60000, 100);
+		assertTrue(keys.add("SM1"));
+		assertFalse(keys.add("SM1"));
+		assertTrue(keys.add("SM2"));
+		assertEquals(2, keys.size());
+	}
+
+	@Test
+	void forgetsKeysAfterTwoGenerations() {
+		final RecentKeySet keys = new RecentKeySet(60000, 2);
+		assertTrue(keys.add("SM1"));
+		assertTrue(keys.add("SM2"));
+		assertTrue(keys.add("SM3"));
+		assertFalse(keys.add("SM1"));
+		assertTrue(keys.add("SM4"));
+		assertTrue(keys.add("SM5"));
+		assertTrue(keys.add("SM1"));
+	}
+
+	@Test
+	void removeForgetsAKeyInEitherGeneration() {
+		final RecentKeySet keys = new RecentKeySet(60000, 2);
+		assertTrue(keys.add("SM1"));
+		keys.remove("SM1");
+		assertTrue(keys.add("SM1"));
+		assertTrue(keys.add("SM2"));
+		assertTrue(keys.add("SM3"));
+		assertFalse(keys.add("SM1"));
+		keys.remove("SM1");
+		assertTrue(keys.add("SM1"));
+	}
+
+}
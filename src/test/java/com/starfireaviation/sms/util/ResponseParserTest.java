@@ -0,0 +1,56 @@
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.sms.model.ParsedResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseParserTest {
+
+	@Test
+	void matchesKeywordsIgnoringCaseAndWhitespace() {
+		assertEquals(ResponseOption.A, ResponseParser.determineResponse("a"));
+		assertEquals(ResponseOption.D, ResponseParser.determineResponse(" D\n"));
+		assertEquals(ResponseOption.CONFIRM, ResponseParser.determineResponse("Confirm"));
+		assertEquals(ResponseOption.DECLINE, ResponseParser.determineResponse("\tdecline "));
+		assertEquals(ResponseOption.SKIP, ResponseParser.determineResponse("skip"));
+	}
+
+	@Test
+	void classifiesOptOutSynonymsAsStop() {
+		for (String keyword : new String[] {"stop", "STOPALL", "Unsubscribe", "cancel", "END", "quit"}) {
+			final ParsedResponse response = ResponseParser.classify(keyword);
+			assertEquals(ResponseOption.STOP, response.getOption());
+			assertEquals(keyword.toUpperCase(), response.getKeyword());
+			assertTrue(response.isOptOut());
+		}
+		assertFalse(ResponseParser.classify("SKIP").isOptOut());
+	}
+
+	@Test
+	void classifiesOptInKeywords() {
+		for (String keyword : new String[] {"start", "UNSTOP"}) {
+			final ParsedResponse response = ResponseParser.classify(keyword);
+			assertTrue(response.isOptIn());
+			assertFalse(response.isConditionalOptIn());
+			assertTrue(response.isValid());
+			assertFalse(response.isOptOut());
+		}
+		assertFalse(ResponseParser.classify("STOP").isOptIn());
+		final ParsedResponse yes = ResponseParser.classify("Yes");
+		assertTrue(yes.isOptIn());
+		assertTrue(yes.isConditionalOptIn());
+	}
+
+	@Test
+	void rejectsAnythingElse() {
+		for (String message : new String[] {null, "", "  ", "E", "AB", "stop please", "confirm!", "UNSUBSCRIBED", "ß"}) {
+			assertSame(ParsedResponse.UNKNOWN, ResponseParser.classify(message));
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+	@Test
+	void roundsCapacityUpToPowerOfTwo() {
+		assertEquals(1, new RingBuffer<Integer>(1).capacity());
+		assertEquals(8, new RingBuffer<Integer>(5).capacity());
+		assertEquals(8, new RingBuffer<Integer>(8).capacity());
+	}
+
+	@Test
+	void wrapsAroundWithCapacitySizedBursts() {
+		final RingBuffer<Integer> buffer = new RingBuffer<>(8);
+		int next = 0;
+		for (int lap = 0; lap < 100; lap++) {
+			for (int i = 0; i < 8; i++) {
+				assertTrue(buffer.offer(next + i));
+			}
+			assertFalse(buffer.offer(-1));
+			assertEquals(8, buffer.size());
+			for (int i = 0; i < 8; i++) {
+				assertEquals(next + i, buffer.poll());
+			}
+			assertNull(buffer.poll());
+			assertTrue(buffer.isEmpty());
+			next += 8;
+		}
+	}
+
+	@Test
+	void drainsInBatches() {
+		final RingBuffer<Integer> buffer = new RingBuffer<>(16);
+		for (int i = 0; i < 10; i++) {
+			buffer.offer(i);
+		}
+		final List<Integer> batch = new ArrayList<>();
+		assertEquals(4, buffer.drainTo(batch, 4));
+		assertEquals(List.of(0, 1, 2, 3), batch);
+		batch.clear();
+		assertEquals(4, buffer.drainTo(batch, 4));
+		assertEquals(List.of(4, 5, 6, 7), batch);
+		batch.clear();
+		assertEquals(2, buffer.drainTo(batch, 4));
+		assertEquals(List.of(8, 9), batch);
+		assertEquals(0, buffer.drainTo(batch, 4));
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	void concurrentProducersAndConsumersNeitherLoseNorDuplicate() throws InterruptedException {
+		final int producers = 4;
+		final int consumers = 4;
+		final int perProducer = 20_000;
+		final int total = producers * perProducer;
+		final RingBuffer<Integer> buffer = new RingBuffer<>(64);
+		final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+		final AtomicInteger consumed = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final int base = p * perProducer;
+			threads.add(new Thread(() -> {
+				await(start);
+				for (int i = 0; i < perProducer; i++) {
+					while (!buffer.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+			}));
+		}
+		for (int c = 0; c < consumers; c++) {
+			threads.add(new Thread(() -> {
+				await(start);
+				final List<Integer> batch = new ArrayList<>();
+				while (consumed.get() < total) {
+					if (buffer.drainTo(batch, 16) == 0) {
+						Thread.yield();
+						continue;
+					}
+					for (Integer value : batch) {
+						seen.incrementAndGet(value);
+					}
+					consumed.addAndGet(batch.size());
+					batch.clear();
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+			assertFalse(thread.isAlive());
+		}
+
+		assertEquals(total, consumed.get());
+		for (int i = 0; i < total; i++) {
+			assertEquals(1, seen.get(i), "value " + i);
+		}
+		assertTrue(buffer.isEmpty());
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.sms.model.EncodedMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SmsEncodingTest {
+
+	private static String repeat(final char c, final int count) {
+		final StringBuilder sb = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	@Test
+	void countsGsm7Segments() {
+		assertEquals(1, SmsEncoding.encode(repeat('a', 160)).getSegments());
+		assertEquals(2, SmsEncoding.encode(repeat('a', 161)).getSegments());
+		assertEquals(3, SmsEncoding.encode(repeat('a', 307)).getSegments());
+
+		final EncodedMessage escaped = SmsEncoding.encode(repeat('a', 152) + "{" + repeat('a', 10));
+		assertEquals(EncodedMessage.Encoding.GSM_7, escaped.getEncoding());
+		assertEquals(164, escaped.getLength());
+		assertEquals(2, escaped.getSegments());
+		assertEquals(3, SmsEncoding.encode(repeat('a', 152) + "{" + repeat('a', 152)).getSegments());
+		assertEquals(EncodedMessage.Encoding.GSM_7, SmsEncoding.encode("Café £5 Δ € @").getEncoding());
+	}
+
+	@Test
+	void countsUcs2Segments() {
+		final EncodedMessage tab = SmsEncoding.encode("Address:\n\t1 Hangar Rd");
+		assertEquals(EncodedMessage.Encoding.UCS_2, tab.getEncoding());
+		assertEquals(1, SmsEncoding.encode(repeat('’', 70)).getSegments());
+		assertEquals(2, SmsEncoding.encode(repeat('’', 71)).getSegments());
+		assertEquals(3, SmsEncoding.encode(repeat('a', 66) + "😀" + repeat('a', 66)).getSegments());
+	}
+
+	@Test
+	void transliteratesToGsm7() {
+		final String text = "“Weather” – it’s\tcoming… naïve";
+		assertEquals("\"Weather\" - it's coming... naive", SmsEncoding.transliterate(text));
+
+		final String gsm = "Already GSM-7";
+		assertSame(gsm, SmsEncoding.transliterate(gsm));
+		assertEquals("smile 😀", SmsEncoding.transliterate("smile\t😀"));
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedExecutorTest {
+
+	@Test
+	void tasksForOneKeyRunInOrder() {
+		final StripedExecutor executor = new StripedExecutor("test-", 4, 8);
+		final Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			final long key = 15555550100L + i % 10;
+			final int sequence = i;
+			executor.execute(key, () -> seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence));
+		}
+		assertTrue(executor.shutdown(10, TimeUnit.SECONDS));
+		assertEquals(10, seen.size());
+		for (List<Integer> sequences : seen.values()) {
+			assertEquals(100, sequences.size());
+			for (int i = 1; i < sequences.size(); i++) {
+				assertTrue(sequences.get(i - 1) < sequences.get(i));
+			}
+		}
+	}
+
+	@Test
+	void tasksRunOnCallerAfterShutdown() {
+		final StripedExecutor executor = new StripedExecutor("test-", 2, 8);
+		executor.shutdown(1, TimeUnit.SECONDS);
+		final List<Thread> threads = new ArrayList<>();
+		executor.execute(15555550100L, () -> threads.add(Thread.currentThread()));
+		assertEquals(List.of(Thread.currentThread()), threads);
+	}
+
+	@Test
+	void stripeIsStableAndInRange() {
+		for (long key = 15555550100L; key < 15555550200L; key++) {
+			final int stripe = StripedExecutor.stripe(key, 7);
+			assertTrue(stripe >= 0 && stripe < 7);
+			assertEquals(stripe, StripedExecutor.stripe(key, 7));
+		}
+		final int stripe = StripedExecutor.stripe(PhoneNumbers.INVALID, 7);
+		assertTrue(stripe >= 0 && stripe < 7);
+	}
+
+}
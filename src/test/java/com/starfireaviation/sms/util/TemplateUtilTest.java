@@ -0,0 +1,57 @@
+package com.starfireaviation.sms.util;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.sms.model.EventFragment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateUtilTest {
+
+	private final TimeZone defaultZone = TimeZone.getDefault();
+
+	private final Locale defaultLocale = Locale.getDefault();
+
+	@BeforeEach
+	void setUp() {
+		Locale.setDefault(Locale.US);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TimeZone.setDefault(defaultZone);
+		Locale.setDefault(defaultLocale);
+	}
+
+	private static Event event(final LocalDateTime startTime) {
+		final Event event = new Event();
+		event.setTitle("Ground School");
+		event.setStartTime(startTime);
+		return event;
+	}
+
+	@Test
+	void formatsDayAndTimeInEasternTimeAroundMidnight() {
+		for (String zone : new String[] {"UTC", "America/Los_Angeles", "Asia/Tokyo"}) {
+			TimeZone.setDefault(TimeZone.getTimeZone(zone));
+
+			final EventFragment justAfter = TemplateUtil.buildEventFragment(
+					event(LocalDateTime.of(2022, 10, 16, 0, 15)), 1L);
+			assertEquals("Sunday", justAfter.getDayOfWeek(), zone);
+			assertTrue(justAfter.getEvent().contains("Time: Sun Oct 16, 2022 12:15 AM"), zone);
+
+			final EventFragment justBefore = TemplateUtil.buildEventFragment(
+					event(LocalDateTime.of(2022, 10, 15, 23, 45)), 1L);
+			assertEquals("Saturday", justBefore.getDayOfWeek(), zone);
+			assertTrue(justBefore.getEvent().contains("Time: Sat Oct 15, 2022 11:45 PM"), zone);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+	@Test
+	void allowsBurstThenWaitsOneInterval() {
+		final TokenBucket bucket = new TokenBucket(1.0, 3, clock::get);
+
+		assertEquals(0, bucket.reserve());
+		assertEquals(0, bucket.reserve());
+		assertEquals(0, bucket.reserve());
+		assertEquals(SECOND, bucket.reserve());
+		assertEquals(2 * SECOND, bucket.reserve());
+	}
+
+	@Test
+	void spacesSteadyStateSendsOneIntervalApart() {
+		final TokenBucket bucket = new TokenBucket(10.0, 1, clock::get);
+		final long interval = SECOND / 10;
+		assertEquals(interval, bucket.getIntervalNanos());
+
+		assertEquals(0, bucket.reserve());
+		assertEquals(interval, bucket.reserve());
+		assertEquals(2 * interval, bucket.reserve());
+
+		clock.addAndGet(3 * interval);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(0, bucket.reserve());
+			clock.addAndGet(interval);
+		}
+		clock.addAndGet(-interval / 2);
+		assertEquals(interval / 2, bucket.reserve());
+	}
+
+	@Test
+	void idleTimeDoesNotBankMoreThanTheBurst() {
+		final TokenBucket bucket = new TokenBucket(1.0, 2, clock::get);
+
+		clock.addAndGet(60 * SECOND);
+		assertEquals(0, bucket.reserve());
+		assertEquals(0, bucket.reserve());
+		assertEquals(SECOND, bucket.reserve());
+	}
+
+	@Test
+	void rejectsInvalidRates() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1.0, 0));
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.starfireaviation.sms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+	private static final int VIRTUAL_THREADS_RELEASE = 21;
+
+	@Test
+	void fallsBackOnRuntimesWithoutVirtualThreads() {
+		assumeTrue(Runtime.version().feature() < VIRTUAL_THREADS_RELEASE);
+
+		assertFalse(VirtualThreads.isSupported());
+		assertNull(VirtualThreads.newExecutor("test-"));
+	}
+
+	@Test
+	void startsNamedVirtualThreads() throws Exception {
+		assumeTrue(Runtime.version().feature() >= VIRTUAL_THREADS_RELEASE);
+		assertTrue(VirtualThreads.isSupported());
+
+		final ExecutorService executor = VirtualThreads.newExecutor("test-");
+		try {
+			final Thread first = executor.submit(Thread::currentThread).get();
+			final Thread second = executor.submit(Thread::currentThread).get();
+			assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(first));
+			assertEquals("test-0", first.getName());
+			assertEquals("test-1", second.getName());
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		}
+	}
+
+}